@@ -0,0 +1,61 @@
+package com.bin.fastcmd.bench;
+
+import com.bin.fastcmd.utils.ArgumentParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing the arguments of /fastcmd create and change
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArgumentParserBenchmark {
+    
+    private final String[] simple = "create --name:gate --type:normal `say hi`".split(" ");
+    private final String[] full = ("create --name:gate --type:repeating --delay:20 --disable:6000 --connected:door,lamp"
+        + " --namespace:arena --tags:pvp,arena,lobby --priority:high `tellraw @a {\"text\":\"Round starts\"}`").split(" ");
+    private final String[] cron = "create --name:restart --type:normal --cron:\"0 4 * * *\" `say restarting soon`".split(" ");
+    
+    @Benchmark
+    public ArgumentParser simple() {
+        return new ArgumentParser(simple, 1);
+    }
+    
+    @Benchmark
+    public ArgumentParser full() {
+        return new ArgumentParser(full, 1);
+    }
+    
+    @Benchmark
+    public ArgumentParser quotedCron() {
+        return new ArgumentParser(cron, 1);
+    }
+    
+    @Benchmark
+    public void fullWithLookups(Blackhole blackhole) {
+        // What handleCreate does after parsing
+        ArgumentParser parser = new ArgumentParser(full, 1);
+        blackhole.consume(parser.getCommand());
+        blackhole.consume(parser.getFlag("name"));
+        blackhole.consume(parser.getFlag("type", "normal"));
+        blackhole.consume(parser.getLongFlag("delay", 0L));
+        blackhole.consume(parser.getLongFlag("disable", 0L));
+        blackhole.consume(parser.getFlag("connected"));
+        blackhole.consume(parser.getFlag("tags"));
+        blackhole.consume(parser.hasFlag("cron"));
+    }
+}
@@ -0,0 +1,173 @@
+package com.bin.fastcmd.bench;
+
+import com.bin.fastcmd.FastCMD;
+import com.bin.fastcmd.models.CommandBlockType;
+import com.bin.fastcmd.models.VirtualCommandBlock;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+
+/**
+ * A FastCMD instance enabled on a {@link StubServer} with its own temporary data folder.
+ * The console has the commands "noop", which succeeds, and "fail", which fails; both only count their runs.
+ */
+public class BenchFixture implements Closeable {
+    
+    private static final long READY_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    
+    private final StubServer server;
+    private final FastCMD plugin;
+    private final File dataFolder;
+    private final StubCommand noop;
+    private final StubCommand fail;
+    
+    private BenchFixture(Map<String, Object> config) throws IOException {
+        this.server = new StubServer();
+        this.noop = new StubCommand("noop", true);
+        this.fail = new StubCommand("fail", false);
+        server.getCommandMap().register("bench", noop);
+        server.getCommandMap().register("bench", fail);
+        
+        this.dataFolder = Files.createTempDirectory("fastcmd-bench").toFile();
+        writeConfig(config);
+        
+        Bukkit.setServer(server);
+        this.plugin = new FastCMD();
+        plugin.init(server, dataFolder);
+        
+        // Keep the plugin's info logging out of the benchmark output
+        plugin.getLogger().setLevel(Level.WARNING);
+        plugin.setEnabled(true);
+        awaitStorage();
+    }
+    
+    /**
+     * Enable FastCMD with the default config.yml, without JMX or the Prometheus endpoint
+     */
+    public static BenchFixture start() throws IOException {
+        return start(Collections.emptyMap());
+    }
+    
+    /**
+     * Enable FastCMD with the default config.yml, changed by the given values
+     *
+     * @param config values by config path, e.g. "storage.format" to "binary"
+     */
+    public static BenchFixture start(Map<String, Object> config) throws IOException {
+        return new BenchFixture(config);
+    }
+    
+    private void writeConfig(Map<String, Object> overrides) throws IOException {
+        YamlConfiguration config = new YamlConfiguration();
+        try (InputStream resource = getClass().getClassLoader().getResourceAsStream("config.yml")) {
+            if (resource == null) {
+                throw new IOException("config.yml is not on the classpath");
+            }
+            config.load(new InputStreamReader(resource, StandardCharsets.UTF_8));
+        } catch (InvalidConfigurationException e) {
+            throw new IOException("Invalid default config.yml", e);
+        }
+        
+        config.set("monitoring.jmx", false);
+        config.set("monitoring.prometheus.enabled", false);
+        for (Map.Entry<String, Object> entry : overrides.entrySet()) {
+            config.set(entry.getKey(), entry.getValue());
+        }
+        config.save(new File(dataFolder, "config.yml"));
+    }
+    
+    private void awaitStorage() {
+        // Blocks are loaded on the storage thread and published by a main thread task
+        long deadline = System.currentTimeMillis() + READY_TIMEOUT_MILLIS;
+        while (!plugin.getStorageManager().isReady()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Command blocks were not loaded in time");
+            }
+            server.getScheduler().tick();
+            Thread.yield();
+        }
+    }
+    
+    /**
+     * Tick until the graph of connected links includes the latest change to the blocks.
+     * It is compiled on the storage thread, so without waiting the tick it is published in varies between runs.
+     */
+    public void awaitExecutionGraph() {
+        long deadline = System.currentTimeMillis() + READY_TIMEOUT_MILLIS;
+        while (!plugin.getStorageManager().isExecutionGraphCurrent()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Connected links were not compiled in time");
+            }
+            server.getScheduler().tick();
+            Thread.yield();
+        }
+    }
+    
+    /**
+     * Add blocks named prefix-0 .. prefix-(count - 1) running "noop", saved together
+     */
+    public List<VirtualCommandBlock> addBlocks(String prefix, int count, CommandBlockType type, long delay) {
+        List<VirtualCommandBlock> blocks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            blocks.add(new VirtualCommandBlock(prefix + "-" + i, "noop", type, delay, 0, null));
+        }
+        plugin.getStorageManager().updateCommandBlocks(blocks);
+        return blocks;
+    }
+    
+    public void tick() {
+        server.getScheduler().tick();
+    }
+    
+    public void tick(int ticks) {
+        server.getScheduler().tick(ticks);
+    }
+    
+    public StubServer getServer() {
+        return server;
+    }
+    
+    public FastCMD getPlugin() {
+        return plugin;
+    }
+    
+    public File getDataFolder() {
+        return dataFolder;
+    }
+    
+    public StubCommand getNoopCommand() {
+        return noop;
+    }
+    
+    public StubCommand getFailCommand() {
+        return fail;
+    }
+    
+    /**
+     * Disable the plugin and delete its data folder
+     */
+    @Override
+    public void close() throws IOException {
+        plugin.setEnabled(false);
+        try (Stream<Path> paths = Files.walk(dataFolder.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
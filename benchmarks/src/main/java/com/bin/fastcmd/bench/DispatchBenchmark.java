@@ -0,0 +1,60 @@
+package com.bin.fastcmd.bench;
+
+import com.bin.fastcmd.models.CommandBlockType;
+import com.bin.fastcmd.models.VirtualCommandBlock;
+import com.bin.fastcmd.utils.CommandDispatcher;
+import org.bukkit.Bukkit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-run cost of a block's command through the compiled command cache and through Bukkit.dispatchCommand.
+ * The command itself does nothing, so this is the overhead of resolving and calling it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+    
+    private BenchFixture fixture;
+    private CommandDispatcher dispatcher;
+    private VirtualCommandBlock block;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        fixture = BenchFixture.start();
+        dispatcher = fixture.getPlugin().getCommandDispatcher();
+        block = new VirtualCommandBlock("bench", "noop @a[tag=arena] give diamond 1", CommandBlockType.NORMAL, 0, 0, null);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+    
+    @Benchmark
+    public boolean compiled() {
+        return dispatcher.dispatch(block);
+    }
+    
+    @Benchmark
+    public boolean dispatchCommand() {
+        return Bukkit.dispatchCommand(Bukkit.getConsoleSender(), block.getCommand());
+    }
+}
@@ -0,0 +1,65 @@
+package com.bin.fastcmd.bench;
+
+import com.bin.fastcmd.managers.LocalizationManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Message lookups with color codes and placeholder replacement, as every command reply does
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocalizationBenchmark {
+    
+    @Param({"en", "ru"})
+    public String language;
+    
+    private BenchFixture fixture;
+    private LocalizationManager lang;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        fixture = BenchFixture.start(Collections.singletonMap("language", language));
+        lang = fixture.getPlugin().getLocalizationManager();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+    
+    @Benchmark
+    public String noReplacements() {
+        return lang.getMessage("prefix");
+    }
+    
+    @Benchmark
+    public String oneReplacement() {
+        return lang.getPrefix() + lang.getMessage("commands.create.success", "{name}", "gate");
+    }
+    
+    @Benchmark
+    public String fourReplacements() {
+        return lang.getPrefix() + lang.getMessage("commands.status.scheduler",
+            "{running}", "1200", "{deferred}", "0", "{dispatched}", "60", "{cron}", "3");
+    }
+}
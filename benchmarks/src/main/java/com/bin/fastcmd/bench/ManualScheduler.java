@@ -0,0 +1,163 @@
+package com.bin.fastcmd.bench;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Scheduler advanced by hand, one {@link #tick()} per server tick.
+ * Tasks run on the thread calling tick() in the order they were scheduled, asynchronous ones included,
+ * so a run is deterministic. Tasks may be scheduled from any thread.
+ */
+public class ManualScheduler implements BukkitScheduler {
+    
+    private final PriorityQueue<ScheduledTask> queue = new PriorityQueue<>(
+        Comparator.comparingLong((ScheduledTask task) -> task.dueTick).thenComparingInt(task -> task.id));
+    private final List<ScheduledTask> due = new ArrayList<>();
+    private long currentTick;
+    private int nextId = 1;
+    
+    /**
+     * Run every task due in the next tick
+     */
+    public void tick() {
+        synchronized (this) {
+            currentTick++;
+            while (!queue.isEmpty() && queue.peek().dueTick <= currentTick) {
+                due.add(queue.poll());
+            }
+        }
+        
+        // Tasks run outside the lock, so they can schedule others from any thread
+        for (int i = 0; i < due.size(); i++) {
+            ScheduledTask task = due.get(i);
+            if (task.cancelled) {
+                continue;
+            }
+            task.runnable.run();
+            if (task.period > 0 && !task.cancelled) {
+                synchronized (this) {
+                    task.dueTick += task.period;
+                    queue.add(task);
+                }
+            }
+        }
+        due.clear();
+    }
+    
+    public void tick(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            tick();
+        }
+    }
+    
+    public synchronized long getCurrentTick() {
+        return currentTick;
+    }
+    
+    /**
+     * Tasks waiting to run, cancelled ones excluded
+     */
+    public synchronized int getPendingTasks() {
+        int pending = 0;
+        for (ScheduledTask task : queue) {
+            if (!task.cancelled) {
+                pending++;
+            }
+        }
+        return pending;
+    }
+    
+    private synchronized BukkitTask schedule(Plugin plugin, Runnable runnable, long delay, long period, boolean sync) {
+        // Like the server scheduler, a delay below one tick runs on the next tick
+        ScheduledTask task = new ScheduledTask(nextId++, plugin, runnable, currentTick + Math.max(delay, 1), period, sync);
+        queue.add(task);
+        return task;
+    }
+    
+    @Override
+    public BukkitTask runTask(Plugin plugin, Runnable task) {
+        return schedule(plugin, task, 1, 0, true);
+    }
+    
+    @Override
+    public BukkitTask runTaskLater(Plugin plugin, Runnable task, long delay) {
+        return schedule(plugin, task, delay, 0, true);
+    }
+    
+    @Override
+    public BukkitTask runTaskTimer(Plugin plugin, Runnable task, long delay, long period) {
+        return schedule(plugin, task, delay, period, true);
+    }
+    
+    @Override
+    public BukkitTask runTaskAsynchronously(Plugin plugin, Runnable task) {
+        return schedule(plugin, task, 1, 0, false);
+    }
+    
+    @Override
+    public BukkitTask runTaskTimerAsynchronously(Plugin plugin, Runnable task, long delay, long period) {
+        return schedule(plugin, task, delay, period, false);
+    }
+    
+    @Override
+    public synchronized void cancelTasks(Plugin plugin) {
+        for (ScheduledTask task : queue) {
+            if (task.owner == plugin) {
+                task.cancelled = true;
+            }
+        }
+        queue.removeIf(task -> task.cancelled);
+    }
+    
+    private static class ScheduledTask implements BukkitTask {
+        
+        private final int id;
+        private final Plugin owner;
+        private final Runnable runnable;
+        private final long period;
+        private final boolean sync;
+        private long dueTick;
+        private volatile boolean cancelled;
+        
+        ScheduledTask(int id, Plugin owner, Runnable runnable, long dueTick, long period, boolean sync) {
+            this.id = id;
+            this.owner = owner;
+            this.runnable = runnable;
+            this.dueTick = dueTick;
+            this.period = period;
+            this.sync = sync;
+        }
+        
+        @Override
+        public int getTaskId() {
+            return id;
+        }
+        
+        @Override
+        public Plugin getOwner() {
+            return owner;
+        }
+        
+        @Override
+        public boolean isSync() {
+            return sync;
+        }
+        
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+        
+        @Override
+        public void cancel() {
+            // Cancelled tasks are dropped when they come due
+            cancelled = true;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.bin.fastcmd.bench;
+
+import com.bin.fastcmd.utils.ArgumentParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs {@link TickSimulation} for one or more block counts and prints what FastCMD costs per tick.
+ * Options use the plugin's own flag syntax:
+ * <pre>
+ * --blocks:1000,10000,100000  block counts to simulate, one run each
+ * --ticks:6000                measured ticks per run
+ * --warmup:400                ticks run before measuring
+ * --seed:1                    seed of the block mix
+ * --fail:5                    percent of blocks whose command fails
+ * --starts:N                  normal blocks started per tick, 1% of them by default
+ * --max-dispatch:0            scheduler.max-dispatch-per-tick
+ * --command-micros:0          time each command keeps the main thread busy
+ * --throttle:false            let the tick throttle react to measured tick times
+ * --budget-ms:5               share of a tick for the capacity estimate
+ * --csv:ticks.csv             write every measured tick to a CSV file
+ * </pre>
+ */
+public final class SimulationMain {
+    
+    private SimulationMain() {
+    }
+    
+    public static void main(String[] args) throws IOException {
+        ArgumentParser parser = new ArgumentParser(args, 0);
+        List<Integer> blockCounts = new ArrayList<>();
+        for (String count : parser.getFlag("blocks", "1000,10000").split(",")) {
+            blockCounts.add(Integer.parseInt(count.trim()));
+        }
+        double budgetMillis = Double.parseDouble(parser.getFlag("budget-ms", "5"));
+        String csv = parser.getFlag("csv");
+        
+        List<SimulationResult> results = new ArrayList<>();
+        for (int blocks : blockCounts) {
+            TickSimulation simulation = new TickSimulation(blocks, parser.getLongFlag("seed", 1L));
+            simulation.setTicks(parser.getLongFlag("ticks", 6000L).intValue());
+            simulation.setWarmupTicks(parser.getLongFlag("warmup", 400L).intValue());
+            simulation.setFailPercent(parser.getLongFlag("fail", 5L).intValue());
+            simulation.setStartsPerTick(parser.getLongFlag("starts", -1L).intValue());
+            simulation.setMaxDispatchPerTick(parser.getLongFlag("max-dispatch", 0L).intValue());
+            simulation.setCommandNanos(parser.getLongFlag("command-micros", 0L) * 1000);
+            simulation.setThrottle(Boolean.parseBoolean(parser.getFlag("throttle", "false")));
+            
+            SimulationResult result = simulation.run();
+            result.printSummary(System.out, budgetMillis);
+            System.out.println();
+            results.add(result);
+        }
+        
+        if (results.size() > 1) {
+            System.out.println(String.format(Locale.ROOT, "%10s %12s %10s %10s %12s %12s",
+                "blocks", "dispatch/t", "avg ms", "p99 ms", "alloc/t", "max alive"));
+            for (SimulationResult result : results) {
+                System.out.println(String.format(Locale.ROOT, "%10d %12.1f %10.3f %10.3f %12d %12d",
+                    result.getBlocks(), result.getAverageDispatches(), result.getAverageMillis(),
+                    result.getPercentileMillis(0.99), result.getAverageAllocated(), result.getMaxTasksAlive()));
+            }
+        }
+        
+        if (csv != null) {
+            try (PrintWriter out = new PrintWriter(new File(csv), StandardCharsets.UTF_8.name())) {
+                out.println(SimulationResult.getCsvHeader());
+                for (SimulationResult result : results) {
+                    result.writeCsv(out);
+                }
+            }
+            System.out.println("Per-tick measurements written to " + csv);
+        }
+    }
+}
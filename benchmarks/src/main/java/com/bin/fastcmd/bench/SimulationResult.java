@@ -0,0 +1,191 @@
+package com.bin.fastcmd.bench;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Per-tick measurements of one {@link TickSimulation} run
+ */
+public class SimulationResult {
+    
+    /**
+     * Length of a server tick at 20 TPS
+     */
+    public static final double TICK_MILLIS = 50;
+    
+    private final int blocks;
+    private final int repeatingBlocks;
+    private final int normalBlocks;
+    private final int chainBlocks;
+    private final int[] dispatches;
+    private final long[] nanos;
+    private final long[] allocated;
+    private final int[] tasksAlive;
+    private final int[] deferred;
+    
+    public SimulationResult(int blocks, int repeatingBlocks, int normalBlocks, int chainBlocks, int ticks) {
+        this.blocks = blocks;
+        this.repeatingBlocks = repeatingBlocks;
+        this.normalBlocks = normalBlocks;
+        this.chainBlocks = chainBlocks;
+        this.dispatches = new int[ticks];
+        this.nanos = new long[ticks];
+        this.allocated = new long[ticks];
+        this.tasksAlive = new int[ticks];
+        this.deferred = new int[ticks];
+    }
+    
+    /**
+     * Record one measured tick
+     *
+     * @param dispatches commands run in the tick
+     * @param nanos time FastCMD spent on the main thread
+     * @param allocated bytes allocated on the main thread, or -1 if unknown
+     * @param tasksAlive blocks scheduled or running at the end of the tick
+     * @param deferred due blocks waiting for dispatch budget at the end of the tick
+     */
+    public void record(int tick, int dispatches, long nanos, long allocated, int tasksAlive, int deferred) {
+        this.dispatches[tick] = dispatches;
+        this.nanos[tick] = nanos;
+        this.allocated[tick] = allocated;
+        this.tasksAlive[tick] = tasksAlive;
+        this.deferred[tick] = deferred;
+    }
+    
+    public int getBlocks() {
+        return blocks;
+    }
+    
+    public int getTicks() {
+        return nanos.length;
+    }
+    
+    public long getTotalDispatches() {
+        long total = 0;
+        for (int count : dispatches) {
+            total += count;
+        }
+        return total;
+    }
+    
+    public double getAverageDispatches() {
+        return nanos.length > 0 ? (double) getTotalDispatches() / nanos.length : 0;
+    }
+    
+    public long getMaxDispatches() {
+        return percentile(toLongs(dispatches), 1);
+    }
+    
+    public double getAverageMillis() {
+        return nanos.length > 0 ? Arrays.stream(nanos).average().orElse(0) / 1_000_000.0 : 0;
+    }
+    
+    /**
+     * Tick time below which the given fraction of ticks finished
+     *
+     * @param fraction fraction of ticks between 0 and 1, e.g. 0.99
+     */
+    public double getPercentileMillis(double fraction) {
+        return percentile(nanos, fraction) / 1_000_000.0;
+    }
+    
+    /**
+     * Average bytes allocated per tick, or -1 if the JVM does not report allocations
+     */
+    public long getAverageAllocated() {
+        if (allocated.length == 0 || allocated[0] < 0) {
+            return -1;
+        }
+        return (long) Arrays.stream(allocated).average().orElse(0);
+    }
+    
+    public long getMaxAllocated() {
+        return allocated.length == 0 || allocated[0] < 0 ? -1 : percentile(allocated, 1);
+    }
+    
+    public int getMaxTasksAlive() {
+        return (int) percentile(toLongs(tasksAlive), 1);
+    }
+    
+    public int getMaxDeferred() {
+        return (int) percentile(toLongs(deferred), 1);
+    }
+    
+    /**
+     * How many blocks of the same mix would fit in the given share of a tick at the 99th percentile,
+     * assuming the tick time grows linearly with the number of blocks
+     */
+    public long estimateCapacity(double budgetMillis) {
+        double p99 = getPercentileMillis(0.99);
+        return p99 > 0 ? (long) (blocks * budgetMillis / p99) : Long.MAX_VALUE;
+    }
+    
+    private static long[] toLongs(int[] values) {
+        long[] result = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = values[i];
+        }
+        return result;
+    }
+    
+    private static long percentile(long[] values, double fraction) {
+        if (values.length == 0) {
+            return 0;
+        }
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+    
+    /**
+     * Print a summary of the run
+     *
+     * @param budgetMillis share of a tick FastCMD may use, for the capacity estimate
+     */
+    public void printSummary(PrintStream out, double budgetMillis) {
+        out.println(String.format(Locale.ROOT, "%d blocks (%d repeating, %d normal, %d chain), %d ticks",
+            blocks, repeatingBlocks, normalBlocks, chainBlocks, getTicks()));
+        out.println(String.format(Locale.ROOT, "  dispatches per tick: avg %.1f, p50 %d, p99 %d, max %d",
+            getAverageDispatches(), percentile(toLongs(dispatches), 0.5), percentile(toLongs(dispatches), 0.99), getMaxDispatches()));
+        out.println(String.format(Locale.ROOT, "  tick time: avg %.3f ms, p50 %.3f ms, p99 %.3f ms, max %.3f ms (%.2f%% of a tick on average)",
+            getAverageMillis(), getPercentileMillis(0.5), getPercentileMillis(0.99), getPercentileMillis(1),
+            getAverageMillis() / TICK_MILLIS * 100));
+        if (getAverageAllocated() >= 0) {
+            out.println(String.format(Locale.ROOT, "  allocated per tick: avg %s, max %s",
+                formatBytes(getAverageAllocated()), formatBytes(getMaxAllocated())));
+        } else {
+            out.println("  allocated per tick: not reported by this JVM");
+        }
+        out.println(String.format(Locale.ROOT, "  tasks alive: max %d, waiting for dispatch budget: max %d",
+            getMaxTasksAlive(), getMaxDeferred()));
+        out.println(String.format(Locale.ROOT, "  estimated blocks within %.1f ms at p99: %d",
+            budgetMillis, estimateCapacity(budgetMillis)));
+    }
+    
+    /**
+     * Write one CSV row per tick, without a header
+     */
+    public void writeCsv(PrintWriter out) {
+        for (int tick = 0; tick < nanos.length; tick++) {
+            out.println(blocks + "," + tick + "," + dispatches[tick] + "," + nanos[tick] + ","
+                + allocated[tick] + "," + tasksAlive[tick] + "," + deferred[tick]);
+        }
+    }
+    
+    public static String getCsvHeader() {
+        return "blocks,tick,dispatches,nanos,allocated_bytes,tasks_alive,deferred";
+    }
+    
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
+        }
+        return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
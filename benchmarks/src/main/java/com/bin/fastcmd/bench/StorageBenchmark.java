@@ -0,0 +1,85 @@
+package com.bin.fastcmd.bench;
+
+import com.bin.fastcmd.models.CommandBlockType;
+import com.bin.fastcmd.models.VirtualCommandBlock;
+import com.bin.fastcmd.storage.FileStorageBackend;
+import com.bin.fastcmd.storage.SnapshotFiles;
+import com.bin.fastcmd.storage.StorageFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full snapshot saves and startup loads of the file backend, in both formats
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+    
+    @Param({"100", "1000", "10000"})
+    public int blocks;
+    
+    @Param({"yaml", "binary"})
+    public String format;
+    
+    private BenchFixture fixture;
+    private StorageFormat storageFormat;
+    private FileStorageBackend backend;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        storageFormat = StorageFormat.fromString(format);
+        fixture = BenchFixture.start(Collections.singletonMap("storage.format", format));
+        
+        // Blocks carry tags, and three of every four are connected to the next one
+        List<VirtualCommandBlock> created = fixture.addBlocks("block", blocks, CommandBlockType.REPEATING, 20);
+        for (int i = 0; i < created.size(); i++) {
+            VirtualCommandBlock block = created.get(i);
+            block.setTags(Arrays.asList("bench", "group-" + i % 16));
+            if (i % 4 != 3 && i + 1 < created.size()) {
+                block.setConnectedBlock(created.get(i + 1).getName());
+            }
+        }
+        backend = new FileStorageBackend(fixture.getPlugin(), storageFormat);
+        backend.open();
+        save();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+    
+    @Benchmark
+    public void save() throws IOException {
+        // The work saveStorage does on the storage thread
+        backend.writeSnapshot(SnapshotFiles.toSnapshot(fixture.getPlugin().getStorageManager().getAllCommandBlocks()));
+    }
+    
+    @Benchmark
+    public Map<String, VirtualCommandBlock> load() throws IOException {
+        // The work loadStorage does on the storage thread when the server starts
+        return new FileStorageBackend(fixture.getPlugin(), storageFormat).load();
+    }
+}
@@ -0,0 +1,46 @@
+package com.bin.fastcmd.bench;
+
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+
+/**
+ * Command that counts its runs and returns a fixed result, optionally busy for a while to stand in for real work
+ */
+public class StubCommand extends Command {
+    
+    private final boolean result;
+    private long runs;
+    private long workNanos;
+    
+    public StubCommand(String name, boolean result) {
+        super(name);
+        this.result = result;
+    }
+    
+    @Override
+    public boolean execute(CommandSender sender, String commandLabel, String[] args) {
+        runs++;
+        if (workNanos > 0) {
+            long end = System.nanoTime() + workNanos;
+            while (System.nanoTime() < end) {
+                // Spin, a sleeping command would not cost the tick any CPU time
+            }
+        }
+        return result;
+    }
+    
+    public long getRuns() {
+        return runs;
+    }
+    
+    /**
+     * How long each run keeps the main thread busy, 0 to return right away
+     */
+    public void setWorkNanos(long workNanos) {
+        this.workNanos = workNanos;
+    }
+    
+    public void resetRuns() {
+        runs = 0;
+    }
+}
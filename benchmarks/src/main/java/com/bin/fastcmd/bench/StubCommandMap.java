@@ -0,0 +1,53 @@
+package com.bin.fastcmd.bench;
+
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandMap;
+import org.bukkit.command.CommandSender;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Command map resolving and running command lines the way the server's command map does
+ */
+public class StubCommandMap implements CommandMap {
+    
+    private static final Pattern SPACE = Pattern.compile(" ");
+    
+    private final Map<String, Command> knownCommands = new HashMap<>();
+    
+    @Override
+    public boolean register(String fallbackPrefix, Command command) {
+        String label = command.getName().toLowerCase(Locale.ENGLISH);
+        knownCommands.put(fallbackPrefix.toLowerCase(Locale.ENGLISH) + ":" + label, command);
+        boolean registered = knownCommands.putIfAbsent(label, command) == null;
+        command.register(this);
+        return registered;
+    }
+    
+    @Override
+    public Command getCommand(String name) {
+        return knownCommands.get(name.toLowerCase(Locale.ENGLISH));
+    }
+    
+    @Override
+    public boolean dispatch(CommandSender sender, String commandLine) {
+        String[] parts = SPACE.split(commandLine);
+        if (parts.length == 0) {
+            return false;
+        }
+        
+        String label = parts[0].toLowerCase(Locale.ENGLISH);
+        Command command = getCommand(label);
+        if (command == null) {
+            return false;
+        }
+        
+        // The server reports a known command as handled whatever its result
+        command.execute(sender, label, Arrays.copyOfRange(parts, 1, parts.length));
+        return true;
+    }
+}
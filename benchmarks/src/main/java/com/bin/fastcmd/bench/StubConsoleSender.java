@@ -0,0 +1,30 @@
+package com.bin.fastcmd.bench;
+
+import org.bukkit.command.ConsoleCommandSender;
+
+/**
+ * Console with every permission that counts and drops the messages sent to it
+ */
+public class StubConsoleSender implements ConsoleCommandSender {
+    
+    private long messages;
+    
+    @Override
+    public void sendMessage(String message) {
+        messages++;
+    }
+    
+    @Override
+    public boolean hasPermission(String name) {
+        return true;
+    }
+    
+    @Override
+    public String getName() {
+        return "CONSOLE";
+    }
+    
+    public long getMessages() {
+        return messages;
+    }
+}
@@ -0,0 +1,78 @@
+package com.bin.fastcmd.bench;
+
+import org.bukkit.Server;
+import org.bukkit.command.CommandMap;
+import org.bukkit.command.CommandSender;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.logging.Logger;
+
+/**
+ * In-process server for benchmarks: a manual scheduler, a command map and a console.
+ * The thread that created it is the main thread until {@link #setPrimaryThread(Thread)} says otherwise.
+ */
+public class StubServer implements Server {
+    
+    private final ManualScheduler scheduler = new ManualScheduler();
+    private final StubCommandMap commandMap = new StubCommandMap();
+    private final StubConsoleSender console = new StubConsoleSender();
+    private final PluginManager pluginManager = new PluginManager() {
+        @Override
+        public void registerEvents(Listener listener, Plugin plugin) {
+            // Nothing fires events, so listeners need not be kept
+        }
+        
+        @Override
+        public void disablePlugin(Plugin plugin) {
+            if (plugin instanceof JavaPlugin) {
+                ((JavaPlugin) plugin).setEnabled(false);
+            }
+        }
+    };
+    private final Logger logger = Logger.getLogger("Server");
+    private volatile Thread primaryThread = Thread.currentThread();
+    
+    @Override
+    public ManualScheduler getScheduler() {
+        return scheduler;
+    }
+    
+    @Override
+    public PluginManager getPluginManager() {
+        return pluginManager;
+    }
+    
+    @Override
+    public StubConsoleSender getConsoleSender() {
+        return console;
+    }
+    
+    /**
+     * Found by reflection like CraftServer's, so blocks dispatch through the compiled command path
+     */
+    public CommandMap getCommandMap() {
+        return commandMap;
+    }
+    
+    @Override
+    public boolean isPrimaryThread() {
+        return Thread.currentThread() == primaryThread;
+    }
+    
+    public void setPrimaryThread(Thread primaryThread) {
+        this.primaryThread = primaryThread;
+    }
+    
+    @Override
+    public boolean dispatchCommand(CommandSender sender, String commandLine) {
+        return commandMap.dispatch(sender, commandLine);
+    }
+    
+    @Override
+    public Logger getLogger() {
+        return logger;
+    }
+}
@@ -0,0 +1,84 @@
+package com.bin.fastcmd.bench;
+
+import com.bin.fastcmd.commands.TabCompleter;
+import com.bin.fastcmd.models.CommandBlockType;
+import org.bukkit.command.Command;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tab completion of /fastcmd with a growing number of block names
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TabCompleterBenchmark {
+    
+    @Param({"10", "1000", "50000"})
+    public int blocks;
+    
+    private BenchFixture fixture;
+    private TabCompleter completer;
+    private Command command;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        fixture = BenchFixture.start();
+        fixture.addBlocks("block", blocks, CommandBlockType.REPEATING, 20);
+        completer = new TabCompleter(fixture.getPlugin());
+        command = fixture.getPlugin().getCommand("fastcmd");
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+    
+    private List<String> complete(String... args) {
+        return completer.onTabComplete(fixture.getServer().getConsoleSender(), command, "fastcmd", args);
+    }
+    
+    @Benchmark
+    public List<String> subcommand() {
+        return complete("st");
+    }
+    
+    @Benchmark
+    public List<String> namePrefix() {
+        // Matches about a tenth of the names
+        return complete("run", "block-1");
+    }
+    
+    @Benchmark
+    public List<String> nameFlag() {
+        return complete("status", "--name:block-4");
+    }
+    
+    @Benchmark
+    public List<String> connected() {
+        return complete("create", "--connected:block-2");
+    }
+    
+    @Benchmark
+    public List<String> flags() {
+        return complete("create", "--name:gate", "--");
+    }
+}
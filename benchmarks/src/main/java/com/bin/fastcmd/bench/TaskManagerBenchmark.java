@@ -0,0 +1,70 @@
+package com.bin.fastcmd.bench;
+
+import com.bin.fastcmd.models.CommandBlockType;
+import com.bin.fastcmd.models.VirtualCommandBlock;
+import com.bin.fastcmd.utils.TaskManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starting and stopping a block, and running a server tick, while many repeating blocks are running
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskManagerBenchmark {
+    
+    @Param({"1000", "10000", "100000"})
+    public int blocks;
+    
+    private BenchFixture fixture;
+    private TaskManager taskManager;
+    private VirtualCommandBlock probe;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        fixture = BenchFixture.start();
+        taskManager = fixture.getPlugin().getTaskManager();
+        
+        // Every block runs once a second, about blocks / 20 of them per tick
+        for (VirtualCommandBlock block : fixture.addBlocks("block", blocks, CommandBlockType.REPEATING, 20)) {
+            taskManager.executeCommandBlock(block);
+        }
+        probe = fixture.addBlocks("probe", 1, CommandBlockType.REPEATING, 20).get(0);
+        fixture.tick(20);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+    
+    @Benchmark
+    public boolean scheduleCancel() {
+        taskManager.executeCommandBlock(probe);
+        taskManager.stopTask(probe.getName());
+        return taskManager.isTaskRunning(probe.getName());
+    }
+    
+    @Benchmark
+    public void tick() {
+        fixture.tick();
+    }
+}
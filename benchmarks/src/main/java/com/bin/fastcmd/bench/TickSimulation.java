@@ -0,0 +1,219 @@
+package com.bin.fastcmd.bench;
+
+import com.bin.fastcmd.models.CommandBlockType;
+import com.bin.fastcmd.models.ExecutionCondition;
+import com.bin.fastcmd.models.VirtualCommandBlock;
+import com.bin.fastcmd.utils.TaskManager;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Drives FastCMD through simulated server ticks with a seeded mix of synthetic command blocks.
+ * Everything runs on the calling thread in a fixed order and the tick throttle is off, so the same
+ * settings always dispatch the same blocks in the same ticks; only the measured times vary.
+ * <p>
+ * About 60% of the blocks repeat with periods from 1 to 200 ticks, 20% are normal blocks with a delay
+ * that are started again round-robin every tick like players would trigger them, and 20% are chain blocks
+ * connected to an earlier block, some with a delay, a link delay or an "if success" condition.
+ */
+public class TickSimulation {
+    
+    private static final long[] REPEATING_PERIODS = {1, 5, 10, 20, 20, 20, 40, 100, 200};
+    
+    private final int blockCount;
+    private final long seed;
+    private int ticks = 6000;
+    private int warmupTicks = 400;
+    private int failPercent = 5;
+    private int startsPerTick = -1;
+    private int maxDispatchPerTick;
+    private long commandNanos;
+    private boolean throttle;
+    
+    public TickSimulation(int blockCount, long seed) {
+        this.blockCount = blockCount;
+        this.seed = seed;
+    }
+    
+    /**
+     * Number of measured ticks, 6000 (five minutes) by default
+     */
+    public void setTicks(int ticks) {
+        this.ticks = ticks;
+    }
+    
+    /**
+     * Ticks run before measuring, so the JIT has compiled the hot paths and pending saves are done
+     */
+    public void setWarmupTicks(int warmupTicks) {
+        this.warmupTicks = warmupTicks;
+    }
+    
+    /**
+     * Share of blocks whose command fails, 5 by default
+     */
+    public void setFailPercent(int failPercent) {
+        this.failPercent = failPercent;
+    }
+    
+    /**
+     * Normal blocks started again per tick, by default one in a hundred of them
+     */
+    public void setStartsPerTick(int startsPerTick) {
+        this.startsPerTick = startsPerTick;
+    }
+    
+    /**
+     * Value of scheduler.max-dispatch-per-tick, 0 for no limit
+     */
+    public void setMaxDispatchPerTick(int maxDispatchPerTick) {
+        this.maxDispatchPerTick = maxDispatchPerTick;
+    }
+    
+    /**
+     * How long each command keeps the main thread busy, 0 to measure FastCMD's own overhead only
+     */
+    public void setCommandNanos(long commandNanos) {
+        this.commandNanos = commandNanos;
+    }
+    
+    /**
+     * Whether the tick throttle may slow blocks down; it reacts to measured tick times, so runs are no longer repeatable
+     */
+    public void setThrottle(boolean throttle) {
+        this.throttle = throttle;
+    }
+    
+    public SimulationResult run() throws IOException {
+        Map<String, Object> config = new HashMap<>();
+        config.put("scheduler.throttle.enabled", throttle);
+        config.put("scheduler.max-dispatch-per-tick", maxDispatchPerTick);
+        config.put("scheduler.tick-budget-nanos", 0);
+        
+        try (BenchFixture fixture = BenchFixture.start(config)) {
+            fixture.getNoopCommand().setWorkNanos(commandNanos);
+            fixture.getFailCommand().setWorkNanos(commandNanos);
+            TaskManager taskManager = fixture.getPlugin().getTaskManager();
+            
+            List<VirtualCommandBlock> blocks = createBlocks();
+            fixture.getPlugin().getStorageManager().updateCommandBlocks(blocks);
+            fixture.awaitExecutionGraph();
+            
+            List<VirtualCommandBlock> normalBlocks = new ArrayList<>();
+            int repeating = 0;
+            for (VirtualCommandBlock block : blocks) {
+                if (block.getType() == CommandBlockType.REPEATING) {
+                    repeating++;
+                    taskManager.executeCommandBlock(block);
+                } else if (block.getType() == CommandBlockType.NORMAL) {
+                    normalBlocks.add(block);
+                    taskManager.executeCommandBlock(block);
+                }
+            }
+            int starts = 0;
+            if (!normalBlocks.isEmpty()) {
+                starts = startsPerTick >= 0 ? startsPerTick : Math.max(1, normalBlocks.size() / 100);
+            }
+            
+            SimulationResult result = new SimulationResult(blockCount, repeating, normalBlocks.size(),
+                blocks.size() - repeating - normalBlocks.size(), ticks);
+            AllocationCounter allocations = new AllocationCounter();
+            int nextStart = 0;
+            
+            for (int tick = -warmupTicks; tick < ticks; tick++) {
+                long runsBefore = fixture.getNoopCommand().getRuns() + fixture.getFailCommand().getRuns();
+                long allocatedBefore = allocations.current();
+                long startTime = System.nanoTime();
+                
+                // Starting blocks is main thread work of FastCMD as well, so it is part of the measured tick
+                for (int i = 0; i < starts; i++) {
+                    taskManager.executeCommandBlock(normalBlocks.get(nextStart));
+                    nextStart = (nextStart + 1) % normalBlocks.size();
+                }
+                fixture.tick();
+                
+                long nanos = System.nanoTime() - startTime;
+                long allocated = allocations.current() - allocatedBefore;
+                if (tick >= 0) {
+                    long runs = fixture.getNoopCommand().getRuns() + fixture.getFailCommand().getRuns() - runsBefore;
+                    result.record(tick, (int) runs, nanos, allocatedBefore < 0 ? -1 : allocated,
+                        taskManager.getRunningCount(), taskManager.getDeferredCount());
+                }
+            }
+            return result;
+        }
+    }
+    
+    private List<VirtualCommandBlock> createBlocks() {
+        Random random = new Random(seed);
+        List<VirtualCommandBlock> blocks = new ArrayList<>(blockCount);
+        List<List<String>> links = new ArrayList<>(blockCount);
+        
+        for (int i = 0; i < blockCount; i++) {
+            String name = "sim-" + i;
+            String command = random.nextInt(100) < failPercent ? "fail" : "noop";
+            int roll = random.nextInt(100);
+            
+            VirtualCommandBlock block;
+            if (roll < 60) {
+                long period = REPEATING_PERIODS[random.nextInt(REPEATING_PERIODS.length)];
+                block = new VirtualCommandBlock(name, command, CommandBlockType.REPEATING, period, 0, null);
+            } else if (roll < 80 || i == 0) {
+                block = new VirtualCommandBlock(name, command, CommandBlockType.NORMAL, random.nextInt(200), 0, null);
+            } else {
+                // Most chain blocks run in the same tick as the block triggering them
+                long delay = random.nextInt(4) == 0 ? 1 + random.nextInt(10) : 0;
+                block = new VirtualCommandBlock(name, command, CommandBlockType.CHAIN, delay, 0, null);
+                if (random.nextInt(4) == 0) {
+                    block.setCondition(ExecutionCondition.SUCCESS);
+                }
+                
+                // Linking only to earlier blocks keeps the graph free of cycles
+                String link = random.nextInt(10) == 0 ? name + "@" + (1 + random.nextInt(20)) : name;
+                links.get(random.nextInt(i)).add(link);
+            }
+            blocks.add(block);
+            links.add(new ArrayList<>());
+        }
+        
+        for (int i = 0; i < blockCount; i++) {
+            if (!links.get(i).isEmpty()) {
+                blocks.get(i).setConnectedBlock(String.join(",", links.get(i)));
+            }
+        }
+        return blocks;
+    }
+    
+    /**
+     * Bytes allocated by the current thread, read through the HotSpot extension of ThreadMXBean
+     */
+    private static class AllocationCounter {
+        
+        private final com.sun.management.ThreadMXBean threads;
+        private final long threadId = Thread.currentThread().getId();
+        
+        AllocationCounter() {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+                threads = (com.sun.management.ThreadMXBean) bean;
+                threads.setThreadAllocatedMemoryEnabled(true);
+            } else {
+                threads = null;
+            }
+        }
+        
+        /**
+         * Bytes allocated so far, or -1 if the JVM cannot tell
+         */
+        long current() {
+            return threads != null ? threads.getThreadAllocatedBytes(threadId) : -1;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.bin.fastcmd.bench;
+
+import com.bin.fastcmd.utils.TimingWheel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One tick of the shared timing wheel against one tick of a scheduler holding a task per block,
+ * which is how repeating blocks were run before the wheel. Blocks repeat every second, spread over the ticks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimingWheelBenchmark {
+    
+    private static final long PERIOD = 20;
+    
+    @Param({"1000", "10000", "100000"})
+    public int blocks;
+    
+    private TimingWheel<Object> wheel;
+    private ManualScheduler scheduler;
+    private long fired;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        wheel = new TimingWheel<>();
+        scheduler = new ManualScheduler();
+        Runnable task = () -> fired++;
+        for (int i = 0; i < blocks; i++) {
+            String name = "block-" + i;
+            wheel.schedule(name, name, 1 + i % PERIOD);
+            scheduler.runTaskTimer(null, task, 1 + i % PERIOD, PERIOD);
+        }
+    }
+    
+    @Benchmark
+    public long wheelTick() {
+        // Fired blocks are scheduled again like TaskManager does for repeating blocks
+        wheel.advance((name, payload) -> {
+            fired++;
+            wheel.schedule(name, payload, PERIOD);
+        });
+        return fired;
+    }
+    
+    @Benchmark
+    public long taskPerBlockTick() {
+        scheduler.tick();
+        return fired;
+    }
+}
@@ -0,0 +1,49 @@
+package org.bukkit;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.scheduler.BukkitScheduler;
+
+import java.util.logging.Logger;
+
+/**
+ * Benchmark stand-in for the Bukkit API entry point, delegating to the server set by the harness
+ */
+public final class Bukkit {
+    
+    private static Server server;
+    
+    private Bukkit() {
+    }
+    
+    public static Server getServer() {
+        return server;
+    }
+    
+    /**
+     * Unlike the real API the server may be replaced, every benchmark fixture brings its own
+     */
+    public static void setServer(Server server) {
+        Bukkit.server = server;
+    }
+    
+    public static BukkitScheduler getScheduler() {
+        return server.getScheduler();
+    }
+    
+    public static boolean isPrimaryThread() {
+        return server.isPrimaryThread();
+    }
+    
+    public static ConsoleCommandSender getConsoleSender() {
+        return server.getConsoleSender();
+    }
+    
+    public static boolean dispatchCommand(CommandSender sender, String commandLine) {
+        return server.dispatchCommand(sender, commandLine);
+    }
+    
+    public static Logger getLogger() {
+        return server.getLogger();
+    }
+}
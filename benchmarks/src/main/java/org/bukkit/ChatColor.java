@@ -0,0 +1,25 @@
+package org.bukkit;
+
+/**
+ * Color code translation as done by the real API, without the color constants
+ */
+public final class ChatColor {
+    
+    public static final char COLOR_CHAR = '§';
+    
+    private static final String COLOR_CODES = "0123456789AaBbCcDdEeFfKkLlMmNnOoRrXx";
+    
+    private ChatColor() {
+    }
+    
+    public static String translateAlternateColorCodes(char altColorChar, String textToTranslate) {
+        char[] chars = textToTranslate.toCharArray();
+        for (int i = 0; i < chars.length - 1; i++) {
+            if (chars[i] == altColorChar && COLOR_CODES.indexOf(chars[i + 1]) > -1) {
+                chars[i] = COLOR_CHAR;
+                chars[i + 1] = Character.toLowerCase(chars[i + 1]);
+            }
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,26 @@
+package org.bukkit;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.scheduler.BukkitScheduler;
+
+import java.util.logging.Logger;
+
+/**
+ * The part of the server API FastCMD uses
+ */
+public interface Server {
+    
+    BukkitScheduler getScheduler();
+    
+    PluginManager getPluginManager();
+    
+    ConsoleCommandSender getConsoleSender();
+    
+    boolean isPrimaryThread();
+    
+    boolean dispatchCommand(CommandSender sender, String commandLine);
+    
+    Logger getLogger();
+}
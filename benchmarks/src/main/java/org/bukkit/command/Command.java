@@ -0,0 +1,38 @@
+package org.bukkit.command;
+
+/**
+ * A command registered in a command map
+ */
+public abstract class Command {
+    
+    private final String name;
+    private boolean registered;
+    
+    protected Command(String name) {
+        this.name = name;
+    }
+    
+    public abstract boolean execute(CommandSender sender, String commandLabel, String[] args);
+    
+    public String getName() {
+        return name;
+    }
+    
+    public String getLabel() {
+        return name;
+    }
+    
+    public boolean register(CommandMap commandMap) {
+        registered = true;
+        return true;
+    }
+    
+    public boolean unregister(CommandMap commandMap) {
+        registered = false;
+        return true;
+    }
+    
+    public boolean isRegistered() {
+        return registered;
+    }
+}
@@ -0,0 +1,10 @@
+package org.bukkit.command;
+
+public interface CommandMap {
+    
+    boolean register(String fallbackPrefix, Command command);
+    
+    Command getCommand(String name);
+    
+    boolean dispatch(CommandSender sender, String commandLine);
+}
@@ -0,0 +1,46 @@
+package org.bukkit.command;
+
+import org.bukkit.plugin.Plugin;
+
+/**
+ * A command owned by a plugin, run by its executor
+ */
+public class PluginCommand extends Command {
+    
+    private final Plugin owner;
+    private CommandExecutor executor;
+    private TabCompleter completer;
+    
+    public PluginCommand(String name, Plugin owner) {
+        super(name);
+        this.owner = owner;
+    }
+    
+    @Override
+    public boolean execute(CommandSender sender, String commandLabel, String[] args) {
+        if (!owner.isEnabled() || executor == null) {
+            return false;
+        }
+        return executor.onCommand(sender, this, commandLabel, args);
+    }
+    
+    public Plugin getPlugin() {
+        return owner;
+    }
+    
+    public CommandExecutor getExecutor() {
+        return executor;
+    }
+    
+    public void setExecutor(CommandExecutor executor) {
+        this.executor = executor;
+    }
+    
+    public TabCompleter getTabCompleter() {
+        return completer;
+    }
+    
+    public void setTabCompleter(TabCompleter completer) {
+        this.completer = completer;
+    }
+}
@@ -0,0 +1,8 @@
+package org.bukkit.configuration;
+
+public class InvalidConfigurationException extends Exception {
+    
+    public InvalidConfigurationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,194 @@
+package org.bukkit.configuration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Configuration section kept in insertion ordered maps, with the lookup rules of the real API.
+ * Nested maps passed to {@link #createSection(String, Map)} become sections, values given to
+ * {@link #set(String, Object)} are stored as they are.
+ */
+public class MemorySection implements ConfigurationSection {
+    
+    private final Map<String, Object> map = new LinkedHashMap<>();
+    
+    @Override
+    public Set<String> getKeys(boolean deep) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            keys.add(entry.getKey());
+            if (deep && entry.getValue() instanceof MemorySection) {
+                for (String key : ((MemorySection) entry.getValue()).getKeys(true)) {
+                    keys.add(entry.getKey() + "." + key);
+                }
+            }
+        }
+        return keys;
+    }
+    
+    @Override
+    public Map<String, Object> getValues(boolean deep) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            values.put(entry.getKey(), entry.getValue());
+            if (deep && entry.getValue() instanceof MemorySection) {
+                for (Map.Entry<String, Object> nested : ((MemorySection) entry.getValue()).getValues(true).entrySet()) {
+                    values.put(entry.getKey() + "." + nested.getKey(), nested.getValue());
+                }
+            }
+        }
+        return values;
+    }
+    
+    @Override
+    public boolean contains(String path) {
+        return get(path) != null;
+    }
+    
+    @Override
+    public Object get(String path) {
+        return get(path, null);
+    }
+    
+    @Override
+    public Object get(String path, Object def) {
+        int dot = path.indexOf('.');
+        if (dot < 0) {
+            Object value = map.get(path);
+            return value != null ? value : def;
+        }
+        Object section = map.get(path.substring(0, dot));
+        return section instanceof ConfigurationSection ? ((ConfigurationSection) section).get(path.substring(dot + 1), def) : def;
+    }
+    
+    @Override
+    public void set(String path, Object value) {
+        int dot = path.indexOf('.');
+        if (dot < 0) {
+            if (value == null) {
+                map.remove(path);
+            } else {
+                map.put(path, value);
+            }
+            return;
+        }
+        
+        String key = path.substring(0, dot);
+        Object section = map.get(key);
+        if (!(section instanceof ConfigurationSection)) {
+            if (value == null) {
+                return;
+            }
+            section = createSection(key);
+        }
+        ((ConfigurationSection) section).set(path.substring(dot + 1), value);
+    }
+    
+    @Override
+    public ConfigurationSection createSection(String path) {
+        MemorySection section = new MemorySection();
+        set(path, section);
+        return section;
+    }
+    
+    @Override
+    public ConfigurationSection createSection(String path, Map<?, ?> values) {
+        ConfigurationSection section = createSection(path);
+        for (Map.Entry<?, ?> entry : values.entrySet()) {
+            if (entry.getValue() instanceof Map) {
+                section.createSection(entry.getKey().toString(), (Map<?, ?>) entry.getValue());
+            } else {
+                section.set(entry.getKey().toString(), entry.getValue());
+            }
+        }
+        return section;
+    }
+    
+    @Override
+    public String getString(String path) {
+        return getString(path, null);
+    }
+    
+    @Override
+    public String getString(String path, String def) {
+        Object value = get(path, def);
+        return value != null ? value.toString() : def;
+    }
+    
+    @Override
+    public int getInt(String path) {
+        return getInt(path, 0);
+    }
+    
+    @Override
+    public int getInt(String path, int def) {
+        Object value = get(path);
+        return value instanceof Number ? ((Number) value).intValue() : def;
+    }
+    
+    @Override
+    public boolean getBoolean(String path) {
+        return getBoolean(path, false);
+    }
+    
+    @Override
+    public boolean getBoolean(String path, boolean def) {
+        Object value = get(path);
+        return value instanceof Boolean ? (Boolean) value : def;
+    }
+    
+    @Override
+    public double getDouble(String path) {
+        return getDouble(path, 0);
+    }
+    
+    @Override
+    public double getDouble(String path, double def) {
+        Object value = get(path);
+        return value instanceof Number ? ((Number) value).doubleValue() : def;
+    }
+    
+    @Override
+    public long getLong(String path) {
+        return getLong(path, 0);
+    }
+    
+    @Override
+    public long getLong(String path, long def) {
+        Object value = get(path);
+        return value instanceof Number ? ((Number) value).longValue() : def;
+    }
+    
+    @Override
+    public List<String> getStringList(String path) {
+        Object value = get(path);
+        if (!(value instanceof List)) {
+            return Collections.emptyList();
+        }
+        
+        // Like the real API, scalars are converted and anything else is skipped
+        List<String> result = new ArrayList<>();
+        for (Object element : (List<?>) value) {
+            if (element instanceof String || element instanceof Number || element instanceof Boolean || element instanceof Character) {
+                result.add(element.toString());
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public boolean isConfigurationSection(String path) {
+        return get(path) instanceof ConfigurationSection;
+    }
+    
+    @Override
+    public ConfigurationSection getConfigurationSection(String path) {
+        Object value = get(path);
+        return value instanceof ConfigurationSection ? (ConfigurationSection) value : null;
+    }
+}
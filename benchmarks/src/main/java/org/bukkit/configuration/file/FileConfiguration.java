@@ -0,0 +1,45 @@
+package org.bukkit.configuration.file;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.MemorySection;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * A configuration that can be read from and written to text
+ */
+public abstract class FileConfiguration extends MemorySection {
+    
+    public abstract String saveToString();
+    
+    public abstract void loadFromString(String contents) throws InvalidConfigurationException;
+    
+    public void save(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        Files.write(file.toPath(), saveToString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public void load(Reader reader) throws IOException, InvalidConfigurationException {
+        StringBuilder builder = new StringBuilder();
+        try (BufferedReader input = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader)) {
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                builder.append(buffer, 0, read);
+            }
+        }
+        loadFromString(builder.toString());
+    }
+    
+    public void load(File file) throws IOException, InvalidConfigurationException {
+        loadFromString(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,93 @@
+package org.bukkit.configuration.file;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * YAML configuration on SnakeYAML, dumped in block style like the real API
+ */
+public class YamlConfiguration extends FileConfiguration {
+    
+    private final Yaml yaml;
+    
+    public YamlConfiguration() {
+        DumperOptions options = new DumperOptions();
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        options.setIndent(2);
+        options.setWidth(Integer.MAX_VALUE);
+        this.yaml = new Yaml(options);
+    }
+    
+    @Override
+    public String saveToString() {
+        Map<String, Object> values = toMap(this);
+        return values.isEmpty() ? "" : yaml.dump(values);
+    }
+    
+    private static Map<String, Object> toMap(ConfigurationSection section) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : section.getValues(false).entrySet()) {
+            Object value = entry.getValue();
+            values.put(entry.getKey(), value instanceof ConfigurationSection ? toMap((ConfigurationSection) value) : value);
+        }
+        return values;
+    }
+    
+    @Override
+    public void loadFromString(String contents) throws InvalidConfigurationException {
+        Object loaded;
+        try {
+            loaded = yaml.load(contents);
+        } catch (YAMLException e) {
+            throw new InvalidConfigurationException("Invalid YAML", e);
+        }
+        if (loaded == null) {
+            return;
+        }
+        if (!(loaded instanceof Map)) {
+            throw new InvalidConfigurationException("Top level is not a map", null);
+        }
+        
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) loaded).entrySet()) {
+            if (entry.getValue() instanceof Map) {
+                createSection(entry.getKey().toString(), (Map<?, ?>) entry.getValue());
+            } else {
+                set(entry.getKey().toString(), entry.getValue());
+            }
+        }
+    }
+    
+    /**
+     * Load a configuration, logging errors and returning what could be read like the real API
+     */
+    public static YamlConfiguration loadConfiguration(Reader reader) {
+        YamlConfiguration config = new YamlConfiguration();
+        try {
+            config.load(reader);
+        } catch (IOException | InvalidConfigurationException e) {
+            Logger.getLogger(YamlConfiguration.class.getName()).log(Level.SEVERE, "Cannot load configuration from stream", e);
+        }
+        return config;
+    }
+    
+    public static YamlConfiguration loadConfiguration(File file) {
+        YamlConfiguration config = new YamlConfiguration();
+        try {
+            config.load(file);
+        } catch (IOException | InvalidConfigurationException e) {
+            Logger.getLogger(YamlConfiguration.class.getName()).log(Level.SEVERE, "Cannot load " + file, e);
+        }
+        return config;
+    }
+}
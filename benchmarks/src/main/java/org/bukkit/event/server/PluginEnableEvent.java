@@ -0,0 +1,17 @@
+package org.bukkit.event.server;
+
+import org.bukkit.event.Event;
+import org.bukkit.plugin.Plugin;
+
+public class PluginEnableEvent extends Event {
+    
+    private final Plugin plugin;
+    
+    public PluginEnableEvent(Plugin plugin) {
+        this.plugin = plugin;
+    }
+    
+    public Plugin getPlugin() {
+        return plugin;
+    }
+}
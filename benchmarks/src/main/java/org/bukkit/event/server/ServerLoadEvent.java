@@ -0,0 +1,6 @@
+package org.bukkit.event.server;
+
+import org.bukkit.event.Event;
+
+public class ServerLoadEvent extends Event {
+}
@@ -0,0 +1,19 @@
+package org.bukkit.plugin;
+
+import org.bukkit.Server;
+
+import java.io.File;
+import java.util.logging.Logger;
+
+public interface Plugin {
+    
+    String getName();
+    
+    File getDataFolder();
+    
+    Server getServer();
+    
+    Logger getLogger();
+    
+    boolean isEnabled();
+}
@@ -0,0 +1,132 @@
+package org.bukkit.plugin.java;
+
+import org.bukkit.Server;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.Plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Plugin base class. Instead of a plugin loader, the harness calls {@link #init(Server, File)}
+ * and enables the plugin with {@link #setEnabled(boolean)}; resources come from the classpath.
+ */
+public abstract class JavaPlugin implements Plugin {
+    
+    private final Map<String, PluginCommand> commands = new HashMap<>();
+    private Server server;
+    private File dataFolder;
+    private Logger logger;
+    private FileConfiguration config;
+    private boolean enabled;
+    
+    public final void init(Server server, File dataFolder) {
+        this.server = server;
+        this.dataFolder = dataFolder;
+        this.logger = Logger.getLogger(getName());
+    }
+    
+    public void onEnable() {
+    }
+    
+    public void onDisable() {
+    }
+    
+    public final void setEnabled(boolean enabled) {
+        if (this.enabled == enabled) {
+            return;
+        }
+        this.enabled = enabled;
+        if (enabled) {
+            onEnable();
+        } else {
+            onDisable();
+            server.getScheduler().cancelTasks(this);
+        }
+    }
+    
+    @Override
+    public final boolean isEnabled() {
+        return enabled;
+    }
+    
+    @Override
+    public String getName() {
+        return getClass().getSimpleName();
+    }
+    
+    @Override
+    public final File getDataFolder() {
+        return dataFolder;
+    }
+    
+    @Override
+    public final Server getServer() {
+        return server;
+    }
+    
+    @Override
+    public Logger getLogger() {
+        return logger;
+    }
+    
+    public PluginCommand getCommand(String name) {
+        return commands.computeIfAbsent(name.toLowerCase(), key -> new PluginCommand(key, this));
+    }
+    
+    public FileConfiguration getConfig() {
+        if (config == null) {
+            reloadConfig();
+        }
+        return config;
+    }
+    
+    public void reloadConfig() {
+        File configFile = new File(dataFolder, "config.yml");
+        config = configFile.exists() ? YamlConfiguration.loadConfiguration(configFile) : new YamlConfiguration();
+    }
+    
+    public void saveConfig() {
+        try {
+            getConfig().save(new File(dataFolder, "config.yml"));
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not save config.yml", e);
+        }
+    }
+    
+    public void saveDefaultConfig() {
+        if (!new File(dataFolder, "config.yml").exists()) {
+            saveResource("config.yml", false);
+        }
+    }
+    
+    public InputStream getResource(String filename) {
+        return getClass().getClassLoader().getResourceAsStream(filename);
+    }
+    
+    public void saveResource(String resourcePath, boolean replace) {
+        File outFile = new File(dataFolder, resourcePath);
+        if (outFile.exists() && !replace) {
+            return;
+        }
+        
+        try (InputStream in = getResource(resourcePath)) {
+            if (in == null) {
+                throw new IllegalArgumentException("The embedded resource '" + resourcePath + "' cannot be found");
+            }
+            outFile.getParentFile().mkdirs();
+            Files.copy(in, outFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not save " + outFile.getName(), e);
+        }
+    }
+}
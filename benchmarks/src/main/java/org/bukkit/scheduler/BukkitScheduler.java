@@ -0,0 +1,21 @@
+package org.bukkit.scheduler;
+
+import org.bukkit.plugin.Plugin;
+
+/**
+ * The scheduling methods FastCMD uses; delays and periods are in ticks
+ */
+public interface BukkitScheduler {
+    
+    BukkitTask runTask(Plugin plugin, Runnable task);
+    
+    BukkitTask runTaskLater(Plugin plugin, Runnable task, long delay);
+    
+    BukkitTask runTaskTimer(Plugin plugin, Runnable task, long delay, long period);
+    
+    BukkitTask runTaskAsynchronously(Plugin plugin, Runnable task);
+    
+    BukkitTask runTaskTimerAsynchronously(Plugin plugin, Runnable task, long delay, long period);
+    
+    void cancelTasks(Plugin plugin);
+}
@@ -0,0 +1,16 @@
+package org.bukkit.scheduler;
+
+import org.bukkit.plugin.Plugin;
+
+public interface BukkitTask {
+    
+    int getTaskId();
+    
+    Plugin getOwner();
+    
+    boolean isSync();
+    
+    boolean isCancelled();
+    
+    void cancel();
+}
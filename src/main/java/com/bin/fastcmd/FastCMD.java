@@ -5,6 +5,9 @@ import com.bin.fastcmd.commands.TabCompleter;
 import com.bin.fastcmd.managers.ConfigManager;
 import com.bin.fastcmd.managers.LocalizationManager;
 import com.bin.fastcmd.managers.StorageManager;
+import com.bin.fastcmd.monitoring.JmxRegistry;
+import com.bin.fastcmd.monitoring.PrometheusExporter;
+import com.bin.fastcmd.utils.CommandDispatcher;
 import com.bin.fastcmd.utils.TaskManager;
 import org.bukkit.plugin.java.JavaPlugin;
 
@@ -21,6 +24,9 @@ public class FastCMD extends JavaPlugin {
     private StorageManager storageManager;
     private LocalizationManager localizationManager;
     private TaskManager taskManager;
+    private CommandDispatcher commandDispatcher;
+    private JmxRegistry jmxRegistry;
+    private PrometheusExporter prometheusExporter;
     
     @Override
     public void onEnable() {
@@ -34,12 +40,30 @@ public class FastCMD extends JavaPlugin {
         storageManager = new StorageManager(this);
         localizationManager = new LocalizationManager(this);
         taskManager = new TaskManager(this);
+        commandDispatcher = new CommandDispatcher(this);
         
-        // Load configurations
+        // Load configurations, command blocks are loaded in the background
         configManager.loadConfig();
         storageManager.loadStorage();
         localizationManager.loadLanguage();
         
+        // Resume blocks that were running before the last shutdown
+        taskManager.start();
+        storageManager.whenReady(taskManager::restoreState);
+        
+        // Expose scheduler and block metrics over JMX and HTTP
+        if (configManager.isJmxEnabled()) {
+            jmxRegistry = new JmxRegistry(this);
+            jmxRegistry.register();
+        }
+        if (configManager.isPrometheusEnabled()) {
+            prometheusExporter = new PrometheusExporter(this);
+            prometheusExporter.start();
+        }
+        
+        // Recompile block commands whenever the server's commands change
+        getServer().getPluginManager().registerEvents(commandDispatcher, this);
+        
         // Register commands
         FastCMDCommand commandExecutor = new FastCMDCommand(this);
         getCommand("fastcmd").setExecutor(commandExecutor);
@@ -51,14 +75,22 @@ public class FastCMD extends JavaPlugin {
     
     @Override
     public void onDisable() {
-        // Stop all running tasks
+        if (jmxRegistry != null) {
+            jmxRegistry.unregisterAll();
+        }
+        if (prometheusExporter != null) {
+            prometheusExporter.stop();
+        }
+        
+        // Remember running blocks, then stop all running tasks
         if (taskManager != null) {
+            taskManager.saveState();
             taskManager.stopAllTasks();
         }
         
-        // Save storage
+        // Flush pending storage changes
         if (storageManager != null) {
-            storageManager.saveStorage();
+            storageManager.shutdown();
         }
         
         getLogger().info("FastCMD plugin has been disabled!");
@@ -83,4 +115,8 @@ public class FastCMD extends JavaPlugin {
     public TaskManager getTaskManager() {
         return taskManager;
     }
+    
+    public CommandDispatcher getCommandDispatcher() {
+        return commandDispatcher;
+    }
 }
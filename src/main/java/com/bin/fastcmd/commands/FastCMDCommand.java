@@ -3,18 +3,52 @@ package com.bin.fastcmd.commands;
 import com.bin.fastcmd.FastCMD;
 import com.bin.fastcmd.managers.LocalizationManager;
 import com.bin.fastcmd.managers.StorageManager;
+import com.bin.fastcmd.models.BlockPriority;
+import com.bin.fastcmd.models.ClockMode;
 import com.bin.fastcmd.models.CommandBlockType;
+import com.bin.fastcmd.models.ConnectedLink;
+import com.bin.fastcmd.models.CronExpression;
+import com.bin.fastcmd.models.ExecutionCondition;
+import com.bin.fastcmd.models.ExecutionGraph;
 import com.bin.fastcmd.models.VirtualCommandBlock;
+import com.bin.fastcmd.storage.FileStorageBackend;
+import com.bin.fastcmd.storage.SqliteStorageBackend;
+import com.bin.fastcmd.storage.StorageBackend;
+import com.bin.fastcmd.storage.StorageFormat;
 import com.bin.fastcmd.utils.ArgumentParser;
+import com.bin.fastcmd.utils.BlockSelector;
+import com.bin.fastcmd.utils.BlockStats;
+import com.bin.fastcmd.utils.TaskManager;
+import com.bin.fastcmd.utils.TickThrottle;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.PatternSyntaxException;
+
 /**
  * Main command executor for FastCMD plugin
  */
 public class FastCMDCommand implements CommandExecutor {
     
+    private static final int DEFAULT_LOAD_TICKS = 100;
+    private static final int MAX_LOAD_TICKS = 1200;
+    private static final int DEFAULT_STATS_TOP = 10;
+    private static final int MAX_STATS_TOP = 100;
+    private static final DateTimeFormatter CRON_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    
     private final FastCMD plugin;
     private final LocalizationManager lang;
     private final StorageManager storage;
@@ -41,6 +75,13 @@ public class FastCMDCommand implements CommandExecutor {
         
         String subCommand = args[0].toLowerCase();
         
+        // Commands touching command blocks wait until storage has finished loading
+        if (!storage.isReady() && requiresStorage(subCommand)) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("errors.storage-loading"));
+            storage.whenReady(() -> onCommand(sender, command, label, args));
+            return true;
+        }
+        
         switch (subCommand) {
             case "create":
                 if (sender.hasPermission("fastcmd.create")) {
@@ -77,6 +118,41 @@ public class FastCMDCommand implements CommandExecutor {
                     sender.sendMessage(lang.getPrefix() + lang.getMessage("errors.no-permission"));
                 }
                 break;
+            case "status":
+                if (sender.hasPermission("fastcmd.status")) {
+                    handleStatus(sender, args);
+                } else {
+                    sender.sendMessage(lang.getPrefix() + lang.getMessage("errors.no-permission"));
+                }
+                break;
+            case "load":
+                if (sender.hasPermission("fastcmd.load")) {
+                    handleLoad(sender, args);
+                } else {
+                    sender.sendMessage(lang.getPrefix() + lang.getMessage("errors.no-permission"));
+                }
+                break;
+            case "stats":
+                if (sender.hasPermission("fastcmd.stats")) {
+                    handleStats(sender, args);
+                } else {
+                    sender.sendMessage(lang.getPrefix() + lang.getMessage("errors.no-permission"));
+                }
+                break;
+            case "graph":
+                if (sender.hasPermission("fastcmd.graph")) {
+                    handleGraph(sender, args);
+                } else {
+                    sender.sendMessage(lang.getPrefix() + lang.getMessage("errors.no-permission"));
+                }
+                break;
+            case "storage":
+                if (sender.hasPermission("fastcmd.storage")) {
+                    handleStorage(sender, args);
+                } else {
+                    sender.sendMessage(lang.getPrefix() + lang.getMessage("errors.no-permission"));
+                }
+                break;
             case "help":
                 if (sender.hasPermission("fastcmd.help")) {
                     showHelp(sender);
@@ -99,6 +175,10 @@ public class FastCMDCommand implements CommandExecutor {
         return true;
     }
     
+    private boolean requiresStorage(String subCommand) {
+        return !"help".equals(subCommand) && !"lang".equals(subCommand);
+    }
+    
     private void handleCreate(CommandSender sender, String[] args) {
         if (args.length < 2) {
             sender.sendMessage(lang.getPrefix() + lang.getMessage("errors.invalid-syntax"));
@@ -151,16 +231,99 @@ public class FastCMDCommand implements CommandExecutor {
             return;
         }
         
-        // Check connected block
-        String connectedBlock = parser.getFlag("connected");
-        if (connectedBlock != null && !storage.hasCommandBlock(connectedBlock)) {
-            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.create.connected-not-found",
-                "{name}", connectedBlock));
+        // Check connected blocks. Links to the new name may already exist, so the new block could close a cycle
+        String connectedBlock = null;
+        if (parser.hasFlag("connected")) {
+            List<ConnectedLink> links = parseConnections(sender, "create", parser.getFlag("connected"));
+            if (links == null || !checkCycles(sender, "create", Collections.singletonList(name), links, type, delay)) {
+                return;
+            }
+            connectedBlock = ConnectedLink.formatAll(links);
+        }
+        
+        // Check spread of the connected blocks
+        long spread = parser.getLongFlag("spread", 0L);
+        if (spread < 0 || spread > plugin.getConfigManager().getMaxDelay()) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.create.invalid-spread",
+                "{max}", String.valueOf(plugin.getConfigManager().getMaxDelay())));
+            return;
+        }
+        
+        // Check namespace
+        String namespace = parser.getFlag("namespace");
+        if (namespace != null && namespace.isEmpty()) {
+            namespace = null;
+        }
+        if (namespace != null && !VirtualCommandBlock.isValidNamespace(namespace)) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.create.invalid-namespace",
+                "{namespace}", namespace));
+            return;
+        }
+        
+        // Check tags
+        List<String> tags = parseTags(parser.getFlag("tags", ""));
+        if (tags == null) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.create.invalid-tags",
+                "{tags}", parser.getFlag("tags")));
+            return;
+        }
+        
+        // Check phase, repeating blocks without one get a phase allocated when they start
+        long phase = -1;
+        if (parser.hasFlag("phase")) {
+            phase = parsePhase(parser.getFlag("phase"));
+            if (phase < -1) {
+                sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.create.invalid-phase",
+                    "{max}", String.valueOf(plugin.getConfigManager().getMaxDelay())));
+                return;
+            }
+        }
+        
+        // Check priority
+        BlockPriority priority = BlockPriority.fromString(parser.getFlag("priority", "normal"));
+        if (priority == null) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.create.invalid-priority"));
+            return;
+        }
+        
+        // Check condition under which connected links trigger the block
+        ExecutionCondition condition = ExecutionCondition.fromString(parser.getFlag("if", "always"));
+        if (condition == null) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.create.invalid-condition"));
+            return;
+        }
+        
+        // Check clock, blocks without one use the configured default
+        ClockMode clockMode = null;
+        String clockStr = parser.getFlag("clock");
+        if (clockStr != null) {
+            clockMode = ClockMode.fromString(clockStr);
+            if (clockMode == null) {
+                sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.create.invalid-clock"));
+                return;
+            }
+        }
+        
+        // Check cron expression, blocks with one are started whenever it matches
+        String cron = parser.getFlag("cron");
+        if (cron != null && cron.isEmpty()) {
+            cron = null;
+        }
+        if (cron != null && !isValidCron(cron)) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.create.invalid-cron", "{cron}", cron));
             return;
         }
         
         // Create and save command block
         VirtualCommandBlock commandBlock = new VirtualCommandBlock(name, commandStr, type, delay, disableTime, connectedBlock);
+        commandBlock.setNamespace(namespace);
+        commandBlock.setTags(tags);
+        commandBlock.setSpread(spread);
+        commandBlock.setPhase(phase);
+        commandBlock.setPriority(priority);
+        commandBlock.setCondition(condition);
+        commandBlock.setClockMode(clockMode);
+        commandBlock.setCron(cron);
         storage.addCommandBlock(commandBlock);
         
         sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.create.success", "{name}", name));
@@ -173,6 +336,30 @@ public class FastCMDCommand implements CommandExecutor {
         }
         
         ArgumentParser parser = new ArgumentParser(args, 1);
+        
+        // Selectors start every matching block that is not running yet
+        if (BlockSelector.isPresent(parser)) {
+            // Anyone may run a block by name, but starting many blocks at once is left to operators
+            if (!sender.hasPermission("fastcmd.run.select")) {
+                sender.sendMessage(lang.getPrefix() + lang.getMessage("errors.no-permission"));
+                return;
+            }
+            List<VirtualCommandBlock> commandBlocks = selectBlocks(sender, parser);
+            if (commandBlocks == null) {
+                return;
+            }
+            int started = 0;
+            for (VirtualCommandBlock commandBlock : commandBlocks) {
+                if (!commandBlock.isRunning()) {
+                    plugin.getTaskManager().executeCommandBlock(commandBlock);
+                    started++;
+                }
+            }
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.run.batch-success",
+                "{count}", String.valueOf(started), "{total}", String.valueOf(commandBlocks.size())));
+            return;
+        }
+        
         String name = parser.getFlag("name");
         
         // Support old syntax for backward compatibility
@@ -227,6 +414,7 @@ public class FastCMDCommand implements CommandExecutor {
         
         // Stop task if running
         plugin.getTaskManager().stopTask(name);
+        plugin.getTaskManager().removeStats(name);
         
         storage.removeCommandBlock(name);
         sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.delete.success", "{name}", name));
@@ -239,87 +427,369 @@ public class FastCMDCommand implements CommandExecutor {
         }
         
         ArgumentParser parser = new ArgumentParser(args, 1);
-        String name = parser.getFlag("name");
-        
-        // Support old syntax for backward compatibility  
-        if (name == null && args.length >= 2) {
-            name = args[1];
-        }
+        List<VirtualCommandBlock> commandBlocks;
+        String name = null;
         
-        if (name == null) {
-            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.change.no-name"));
-            return;
-        }
-        
-        VirtualCommandBlock commandBlock = storage.getCommandBlock(name);
-        
-        if (commandBlock == null) {
-            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.change.not-found", "{name}", name));
-            return;
+        // Selectors change every matching block at once
+        if (BlockSelector.isPresent(parser)) {
+            commandBlocks = selectBlocks(sender, parser);
+            if (commandBlocks == null) {
+                return;
+            }
+        } else {
+            name = parser.getFlag("name");
+            
+            // Support old syntax for backward compatibility
+            if (name == null && args.length >= 2) {
+                name = args[1];
+            }
+            
+            if (name == null) {
+                sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.change.no-name"));
+                return;
+            }
+            
+            VirtualCommandBlock commandBlock = storage.getCommandBlock(name);
+            
+            if (commandBlock == null) {
+                sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.change.not-found", "{name}", name));
+                return;
+            }
+            commandBlocks = Collections.singletonList(commandBlock);
         }
         
-        // Update command if provided
+        // Every value is checked before any block is modified, so an invalid one leaves all blocks unchanged
         String newCommand = parser.getCommand();
-        if (newCommand != null && !newCommand.trim().isEmpty()) {
-            commandBlock.setCommand(newCommand);
-        }
         
-        // Update type if provided
+        // Check type if provided
+        CommandBlockType type = null;
         String typeStr = parser.getFlag("type");
         if (typeStr != null) {
-            CommandBlockType type = CommandBlockType.fromString(typeStr);
+            type = CommandBlockType.fromString(typeStr);
             if (type == null) {
                 sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.change.invalid-type"));
                 return;
             }
-            commandBlock.setType(type);
         }
         
-        // Update delay if provided
+        // Check delay if provided
+        Long delay = null;
         if (parser.hasFlag("delay")) {
-            Long delay = parser.getLongFlag("delay", null);
-            if (delay == null) {
-                sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.change.invalid-delay",
-                    "{max}", String.valueOf(plugin.getConfigManager().getMaxDelay())));
-                return;
-            }
-            if (delay < 0 || delay > plugin.getConfigManager().getMaxDelay()) {
+            delay = parser.getLongFlag("delay", null);
+            if (delay == null || delay < 0 || delay > plugin.getConfigManager().getMaxDelay()) {
                 sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.change.invalid-delay",
                     "{max}", String.valueOf(plugin.getConfigManager().getMaxDelay())));
                 return;
             }
-            commandBlock.setDelay(delay);
         }
         
-        // Update disable time if provided
+        // Check disable time if provided
+        Long disableTime = null;
         if (parser.hasFlag("disable")) {
-            Long disableTime = parser.getLongFlag("disable", null);
-            if (disableTime == null) {
+            disableTime = parser.getLongFlag("disable", null);
+            if (disableTime == null || disableTime < 0 || disableTime > plugin.getConfigManager().getMaxDisableTime()) {
                 sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.change.invalid-disable-time",
                     "{max}", String.valueOf(plugin.getConfigManager().getMaxDisableTime())));
                 return;
             }
-            if (disableTime < 0 || disableTime > plugin.getConfigManager().getMaxDisableTime()) {
-                sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.change.invalid-disable-time",
-                    "{max}", String.valueOf(plugin.getConfigManager().getMaxDisableTime())));
+        }
+        
+        // Check connected blocks if provided, an empty value removes the links
+        String connectedBlock = null;
+        List<ConnectedLink> links = null;
+        if (parser.hasFlag("connected")) {
+            links = parseConnections(sender, "change", parser.getFlag("connected"));
+            if (links == null) {
+                return;
+            }
+            connectedBlock = ConnectedLink.formatAll(links);
+        }
+        
+        // New links, or a block turned into a chain block without delay, may close a cycle
+        if (links != null || type != null || delay != null) {
+            List<String> names = new ArrayList<>();
+            for (VirtualCommandBlock commandBlock : commandBlocks) {
+                names.add(commandBlock.getName());
+            }
+            if (!checkCycles(sender, "change", names, links, type, delay)) {
+                return;
+            }
+        }
+        
+        // Check spread if provided
+        Long spread = null;
+        if (parser.hasFlag("spread")) {
+            spread = parser.getLongFlag("spread", null);
+            if (spread == null || spread < 0 || spread > plugin.getConfigManager().getMaxDelay()) {
+                sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.change.invalid-spread",
+                    "{max}", String.valueOf(plugin.getConfigManager().getMaxDelay())));
                 return;
             }
-            commandBlock.setDisableTime(disableTime);
         }
         
-        // Update connected block if provided
-        String connectedBlock = parser.getFlag("connected");
-        if (connectedBlock != null) {
-            if (!storage.hasCommandBlock(connectedBlock)) {
-                sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.change.connected-not-found",
-                    "{name}", connectedBlock));
+        // Check namespace if provided, an empty value moves the block back to the default storage
+        String namespace = parser.getFlag("namespace");
+        if (namespace != null && !namespace.isEmpty() && !VirtualCommandBlock.isValidNamespace(namespace)) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.change.invalid-namespace",
+                "{namespace}", namespace));
+            return;
+        }
+        
+        // Check tags if provided, an empty value removes all tags
+        List<String> tags = null;
+        if (parser.hasFlag("tags")) {
+            tags = parseTags(parser.getFlag("tags"));
+            if (tags == null) {
+                sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.change.invalid-tags",
+                    "{tags}", parser.getFlag("tags")));
                 return;
             }
-            commandBlock.setConnectedBlock(connectedBlock);
         }
         
-        storage.updateCommandBlock(commandBlock);
-        sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.change.success", "{name}", name));
+        // Check phase if provided, takes effect the next time the block starts
+        long phase = -1;
+        if (parser.hasFlag("phase")) {
+            phase = parsePhase(parser.getFlag("phase"));
+            if (phase < -1) {
+                sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.change.invalid-phase",
+                    "{max}", String.valueOf(plugin.getConfigManager().getMaxDelay())));
+                return;
+            }
+        }
+        
+        // Check priority if provided
+        BlockPriority priority = null;
+        String priorityStr = parser.getFlag("priority");
+        if (priorityStr != null) {
+            priority = BlockPriority.fromString(priorityStr);
+            if (priority == null) {
+                sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.change.invalid-priority"));
+                return;
+            }
+        }
+        
+        // Check condition if provided
+        ExecutionCondition condition = null;
+        String conditionStr = parser.getFlag("if");
+        if (conditionStr != null) {
+            condition = ExecutionCondition.fromString(conditionStr);
+            if (condition == null) {
+                sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.change.invalid-condition"));
+                return;
+            }
+        }
+        
+        // Check clock if provided, an empty value goes back to the configured default
+        ClockMode clockMode = null;
+        String clockStr = parser.getFlag("clock");
+        if (clockStr != null) {
+            clockMode = ClockMode.fromString(clockStr);
+            if (clockMode == null && !clockStr.isEmpty()) {
+                sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.change.invalid-clock"));
+                return;
+            }
+        }
+        
+        // Check cron expression if provided, an empty value removes it
+        String cron = parser.getFlag("cron");
+        if (cron != null && !cron.isEmpty() && !isValidCron(cron)) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.change.invalid-cron", "{cron}", cron));
+            return;
+        }
+        
+        for (VirtualCommandBlock commandBlock : commandBlocks) {
+            if (newCommand != null && !newCommand.trim().isEmpty()) {
+                commandBlock.setCommand(newCommand);
+            }
+            if (type != null) {
+                commandBlock.setType(type);
+            }
+            if (delay != null) {
+                commandBlock.setDelay(delay);
+            }
+            if (disableTime != null) {
+                commandBlock.setDisableTime(disableTime);
+            }
+            if (parser.hasFlag("connected")) {
+                commandBlock.setConnectedBlock(connectedBlock);
+            }
+            if (spread != null) {
+                commandBlock.setSpread(spread);
+            }
+            if (namespace != null) {
+                commandBlock.setNamespace(namespace.isEmpty() ? null : namespace);
+            }
+            if (tags != null) {
+                commandBlock.setTags(tags);
+            }
+            if (parser.hasFlag("phase")) {
+                commandBlock.setPhase(phase);
+            }
+            if (priority != null) {
+                commandBlock.setPriority(priority);
+            }
+            if (condition != null) {
+                commandBlock.setCondition(condition);
+            }
+            if (clockStr != null) {
+                commandBlock.setClockMode(clockMode);
+            }
+            if (cron != null) {
+                commandBlock.setCron(cron.isEmpty() ? null : cron);
+            }
+        }
+        
+        if (name != null) {
+            storage.updateCommandBlock(commandBlocks.get(0));
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.change.success", "{name}", name));
+        } else {
+            storage.updateCommandBlocks(commandBlocks);
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.change.batch-success",
+                "{count}", String.valueOf(commandBlocks.size())));
+        }
+    }
+    
+    /**
+     * Blocks picked by the --tag:, --match: and --regex: selectors, or null after telling the sender why there are none
+     */
+    private List<VirtualCommandBlock> selectBlocks(CommandSender sender, ArgumentParser parser) {
+        List<VirtualCommandBlock> commandBlocks;
+        try {
+            commandBlocks = BlockSelector.fromParser(parser).select(storage);
+        } catch (PatternSyntaxException e) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("errors.invalid-selector", "{error}", e.getDescription()));
+            return null;
+        } catch (IllegalArgumentException e) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("errors.invalid-selector", "{error}", e.getMessage()));
+            return null;
+        }
+        if (commandBlocks.isEmpty()) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("errors.no-match"));
+            return null;
+        }
+        return commandBlocks;
+    }
+    
+    /**
+     * Parse and check a --connected: value such as "door,light@10", telling the sender what is wrong with it
+     *
+     * @param section the command whose messages are used, create or change
+     * @return the links, or null if the value is invalid
+     */
+    private List<ConnectedLink> parseConnections(CommandSender sender, String section, String value) {
+        List<ConnectedLink> links;
+        try {
+            links = ConnectedLink.parseAll(value);
+        } catch (IllegalArgumentException e) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands." + section + ".invalid-connected",
+                "{connected}", value, "{max}", String.valueOf(plugin.getConfigManager().getMaxDelay())));
+            return null;
+        }
+        
+        for (ConnectedLink link : links) {
+            if (!storage.hasCommandBlock(link.getName())) {
+                sender.sendMessage(lang.getPrefix() + lang.getMessage("commands." + section + ".connected-not-found",
+                    "{name}", link.getName()));
+                return null;
+            }
+            if (link.getDelay() > plugin.getConfigManager().getMaxDelay()) {
+                sender.sendMessage(lang.getPrefix() + lang.getMessage("commands." + section + ".invalid-connected",
+                    "{connected}", value, "{max}", String.valueOf(plugin.getConfigManager().getMaxDelay())));
+                return null;
+            }
+        }
+        return links;
+    }
+    
+    /**
+     * Check the cycles the named blocks would be part of after being created or changed. Chain blocks without
+     * a delay linked without a delay run in the same tick, so a cycle of them is refused; other cycles are
+     * deliberate loops with a delay somewhere and the sender is only warned.
+     *
+     * @param links new links of the named blocks, or null to keep their own
+     * @param type new type of the named blocks, or null to keep their own
+     * @param delay new delay of the named blocks, or null to keep their own
+     * @return false if the change is refused
+     */
+    private boolean checkCycles(CommandSender sender, String section, List<String> names,
+                                List<ConnectedLink> links, CommandBlockType type, Long delay) {
+        Set<String> changed = new HashSet<>(names);
+        Function<String, List<ConnectedLink>> linksAfter = name -> {
+            VirtualCommandBlock commandBlock = storage.getCommandBlock(name);
+            if (changed.contains(name) && (links != null || commandBlock == null)) {
+                return links != null ? links : Collections.emptyList();
+            }
+            return commandBlock != null ? commandBlock.getConnections() : null;
+        };
+        Predicate<ConnectedLink> sameTick = link -> {
+            if (link.getDelay() > 0) {
+                return false;
+            }
+            VirtualCommandBlock target = storage.getCommandBlock(link.getName());
+            boolean targetChanged = changed.contains(link.getName());
+            CommandBlockType targetType = targetChanged && type != null ? type : target != null ? target.getType() : null;
+            long targetDelay = targetChanged && delay != null ? delay : target != null ? target.getDelay() : 0;
+            return targetType == CommandBlockType.CHAIN && targetDelay == 0;
+        };
+        
+        List<String> cycle = ExecutionGraph.findCycle(names, linksAfter, sameTick);
+        if (cycle != null) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands." + section + ".cycle",
+                "{cycle}", String.join(" -> ", cycle)));
+            return false;
+        }
+        
+        cycle = ExecutionGraph.findCycle(names, linksAfter, link -> true);
+        if (cycle != null) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands." + section + ".delayed-cycle",
+                "{cycle}", String.join(" -> ", cycle)));
+        }
+        return true;
+    }
+    
+    /**
+     * Parse a comma separated --tags: value
+     *
+     * @return the tags, empty for an empty value, or null if a tag is invalid
+     */
+    private List<String> parseTags(String value) {
+        List<String> tags = new ArrayList<>();
+        if (value.isEmpty()) {
+            return tags;
+        }
+        for (String tag : value.split(",")) {
+            if (!VirtualCommandBlock.isValidTag(tag)) {
+                return null;
+            }
+            tags.add(tag);
+        }
+        return tags;
+    }
+    
+    /**
+     * Parse a --phase: value
+     *
+     * @return the phase, -1 for automatic, or -2 if the value is invalid
+     */
+    private long parsePhase(String value) {
+        if (value.isEmpty() || "auto".equalsIgnoreCase(value)) {
+            return -1;
+        }
+        try {
+            long phase = Long.parseLong(value);
+            return phase >= 0 && phase <= plugin.getConfigManager().getMaxDelay() ? phase : -2;
+        } catch (NumberFormatException e) {
+            return -2;
+        }
+    }
+    
+    private boolean isValidCron(String cron) {
+        try {
+            CronExpression.parse(cron);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
     }
     
     private void handleStop(CommandSender sender, String[] args) {
@@ -329,6 +799,25 @@ public class FastCMDCommand implements CommandExecutor {
         }
         
         ArgumentParser parser = new ArgumentParser(args, 1);
+        
+        // Selectors stop every matching block that is running
+        if (BlockSelector.isPresent(parser)) {
+            List<VirtualCommandBlock> commandBlocks = selectBlocks(sender, parser);
+            if (commandBlocks == null) {
+                return;
+            }
+            int stopped = 0;
+            for (VirtualCommandBlock commandBlock : commandBlocks) {
+                if (commandBlock.isRunning()) {
+                    plugin.getTaskManager().stopTask(commandBlock.getName());
+                    stopped++;
+                }
+            }
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.stop.batch-success",
+                "{count}", String.valueOf(stopped), "{total}", String.valueOf(commandBlocks.size())));
+            return;
+        }
+        
         String name = parser.getFlag("name");
         
         // Support old syntax for backward compatibility
@@ -357,6 +846,377 @@ public class FastCMDCommand implements CommandExecutor {
         sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.stop.success", "{name}", name));
     }
     
+    private void handleStatus(CommandSender sender, String[] args) {
+        TaskManager taskManager = plugin.getTaskManager();
+        
+        // Without a name, show the scheduler as a whole
+        if (args.length < 2) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.status.scheduler",
+                "{running}", String.valueOf(taskManager.getRunningCount()),
+                "{deferred}", String.valueOf(taskManager.getDeferredCount()),
+                "{dispatched}", String.valueOf(taskManager.getDispatchedLastTick()),
+                "{cron}", String.valueOf(taskManager.getCronScheduler().size())));
+            
+            TickThrottle throttle = taskManager.getThrottle();
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.status.throttle",
+                "{mspt}", String.format("%.1f", throttle.getAverageMspt()),
+                "{rate}", getThrottleRate(throttle.getMultiplier(), throttle.isPaused()),
+                "{skipped}", String.valueOf(throttle.getSkippedRuns())));
+            
+            long now = System.currentTimeMillis();
+            for (TickThrottle.ThrottleEvent event : throttle.getEvents()) {
+                sender.sendMessage(lang.getMessage("commands.status.throttle-event",
+                    "{ago}", String.valueOf((now - event.getTime()) / 1000),
+                    "{mspt}", String.format("%.1f", event.getAverageMspt()),
+                    "{rate}", getThrottleRate(event.getMultiplier(), event.isPaused())));
+            }
+            return;
+        }
+        
+        ArgumentParser parser = new ArgumentParser(args, 1);
+        String name = parser.getFlag("name");
+        
+        // Support old syntax for backward compatibility
+        if (name == null) {
+            name = args[1];
+        }
+        
+        if (!storage.hasCommandBlock(name)) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.status.not-found", "{name}", name));
+            return;
+        }
+        
+        long nextRun = taskManager.getTicksUntilNextRun(name);
+        String deferral = String.valueOf(taskManager.getLastDeferral(name));
+        if (nextRun < 0) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.status.idle",
+                "{name}", name, "{deferral}", deferral));
+        } else {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.status.running",
+                "{name}", name, "{next}", String.valueOf(nextRun), "{deferral}", deferral));
+        }
+        
+        long nextCronRun = taskManager.getCronScheduler().getNextFire(name);
+        if (nextCronRun >= 0) {
+            String time = CRON_TIME_FORMAT.format(Instant.ofEpochMilli(nextCronRun).atZone(plugin.getConfigManager().getCronTimeZone()));
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.status.cron",
+                "{cron}", storage.getCommandBlock(name).getCron(), "{time}", time));
+        }
+    }
+    
+    private void handleLoad(CommandSender sender, String[] args) {
+        int ticks = DEFAULT_LOAD_TICKS;
+        if (args.length >= 2) {
+            try {
+                ticks = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                ticks = -1;
+            }
+            if (ticks < 1 || ticks > MAX_LOAD_TICKS) {
+                sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.load.invalid-ticks",
+                    "{max}", String.valueOf(MAX_LOAD_TICKS)));
+                return;
+            }
+        }
+        
+        int[] counts = plugin.getTaskManager().predictLoad(ticks);
+        int peak = 0;
+        int peakTick = 0;
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            total += counts[i];
+            if (counts[i] > peak) {
+                peak = counts[i];
+                peakTick = i + 1;
+            }
+        }
+        
+        sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.load.header",
+            "{ticks}", String.valueOf(ticks),
+            "{total}", String.valueOf(total),
+            "{peak}", String.valueOf(peak),
+            "{peak-tick}", String.valueOf(peakTick)));
+        
+        // One row per second of ticks
+        for (int start = 0; start < counts.length; start += 20) {
+            StringBuilder row = new StringBuilder();
+            for (int i = start; i < Math.min(start + 20, counts.length); i++) {
+                row.append(row.length() == 0 ? "" : " ").append(counts[i]);
+            }
+            sender.sendMessage(lang.getMessage("commands.load.row",
+                "{from}", String.valueOf(start + 1), "{counts}", row.toString()));
+        }
+    }
+    
+    private void handleStats(CommandSender sender, String[] args) {
+        TaskManager taskManager = plugin.getTaskManager();
+        ArgumentParser parser = new ArgumentParser(args, 1);
+        String name = parser.getFlag("name");
+        
+        // Support old syntax for backward compatibility
+        if (name == null && args.length >= 2 && !args[1].startsWith("--")) {
+            name = args[1];
+        }
+        
+        // With a name, show everything recorded for the block
+        if (name != null) {
+            if (!storage.hasCommandBlock(name)) {
+                sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.stats.not-found", "{name}", name));
+                return;
+            }
+            BlockStats blockStats = taskManager.getStats(name);
+            if (blockStats == null || blockStats.getFires() == 0) {
+                sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.stats.never-run", "{name}", name));
+                return;
+            }
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.stats.block",
+                "{name}", name,
+                "{fires}", String.valueOf(blockStats.getFires()),
+                "{successes}", String.valueOf(blockStats.getSuccesses()),
+                "{failures}", String.valueOf(blockStats.getFailures()),
+                "{deferrals}", String.valueOf(blockStats.getDeferrals()),
+                "{deferred-ticks}", String.valueOf(blockStats.getDeferredTicks())));
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.stats.latency",
+                "{avg}", formatMicros(blockStats.getAverageNanos()),
+                "{p50}", formatMicros(blockStats.getPercentileNanos(0.5)),
+                "{p90}", formatMicros(blockStats.getPercentileNanos(0.9)),
+                "{p99}", formatMicros(blockStats.getPercentileNanos(0.99)),
+                "{max}", formatMicros(blockStats.getMaxNanos()),
+                "{total}", formatMillis(blockStats.getTotalNanos())));
+            return;
+        }
+        
+        Long top = parser.getLongFlag("top", (long) DEFAULT_STATS_TOP);
+        if (top == null || top < 1 || top > MAX_STATS_TOP) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.stats.invalid-top",
+                "{max}", String.valueOf(MAX_STATS_TOP)));
+            return;
+        }
+        
+        // Without a name, show the blocks that took the most time in total
+        List<Map.Entry<String, BlockStats>> ranked = new ArrayList<>();
+        for (Map.Entry<String, BlockStats> entry : taskManager.getAllStats().entrySet()) {
+            if (entry.getValue().getFires() > 0 && storage.hasCommandBlock(entry.getKey())) {
+                ranked.add(entry);
+            }
+        }
+        if (ranked.isEmpty()) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.stats.empty"));
+            return;
+        }
+        ranked.sort((a, b) -> Long.compare(b.getValue().getTotalNanos(), a.getValue().getTotalNanos()));
+        
+        int count = (int) Math.min(top, ranked.size());
+        sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.stats.header",
+            "{count}", String.valueOf(count), "{blocks}", String.valueOf(ranked.size())));
+        for (int i = 0; i < count; i++) {
+            BlockStats blockStats = ranked.get(i).getValue();
+            sender.sendMessage(lang.getMessage("commands.stats.row",
+                "{rank}", String.valueOf(i + 1),
+                "{name}", ranked.get(i).getKey(),
+                "{total}", formatMillis(blockStats.getTotalNanos()),
+                "{fires}", String.valueOf(blockStats.getFires()),
+                "{avg}", formatMicros(blockStats.getAverageNanos()),
+                "{p99}", formatMicros(blockStats.getPercentileNanos(0.99)),
+                "{max}", formatMicros(blockStats.getMaxNanos()),
+                "{failures}", String.valueOf(blockStats.getFailures())));
+        }
+    }
+    
+    private String formatMicros(long nanos) {
+        return String.format("%.1f", nanos / 1_000.0);
+    }
+    
+    private String formatMillis(long nanos) {
+        return String.format("%.1f", nanos / 1_000_000.0);
+    }
+    
+    private void handleGraph(CommandSender sender, String[] args) {
+        if (args.length < 2) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("errors.invalid-syntax"));
+            return;
+        }
+        
+        ArgumentParser parser = new ArgumentParser(args, 1);
+        String name = parser.getFlag("name");
+        
+        // Support old syntax for backward compatibility
+        if (name == null) {
+            name = args[1];
+        }
+        
+        ExecutionGraph graph = storage.getExecutionGraph();
+        int root = graph.indexOf(name);
+        if (root < 0) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.graph.not-found", "{name}", name));
+            return;
+        }
+        
+        int[] plan = graph.getPlan(root);
+        sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.graph.header",
+            "{name}", name, "{blocks}", String.valueOf(plan.length), "{depth}", String.valueOf(graph.getDepth(root))));
+        
+        for (int node : plan) {
+            VirtualCommandBlock commandBlock = graph.getBlock(node);
+            StringBuilder targets = new StringBuilder();
+            for (int edge = graph.getEdgeStart(node); edge < graph.getEdgeEnd(node); edge++) {
+                int target = graph.getEdgeTarget(edge);
+                if (target >= 0) {
+                    VirtualCommandBlock targetBlock = graph.getBlock(target);
+                    targets.append(targets.length() == 0 ? "" : ", ").append(targetBlock.getName());
+                    if (targetBlock.getCondition() != ExecutionCondition.ALWAYS) {
+                        targets.append(" if ").append(targetBlock.getCondition().getName());
+                    }
+                    if (graph.getEdgeDelay(edge) > 0) {
+                        targets.append(" @").append(graph.getEdgeDelay(edge));
+                    }
+                }
+            }
+            sender.sendMessage(lang.getMessage("commands.graph.node",
+                "{name}", commandBlock.getName(),
+                "{type}", commandBlock.getType().getLocalizedName(lang.getCurrentLanguage()),
+                "{delay}", String.valueOf(commandBlock.getDelay()),
+                "{connected}", targets.length() == 0 ? "-" : targets.toString()));
+        }
+        
+        for (List<String> cycle : graph.getCycles()) {
+            if (containsAny(cycle, graph, plan)) {
+                sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.graph.cycle",
+                    "{cycle}", String.join(" -> ", cycle)));
+            }
+        }
+    }
+    
+    private boolean containsAny(List<String> names, ExecutionGraph graph, int[] nodes) {
+        for (int node : nodes) {
+            if (names.contains(graph.getBlock(node).getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private String getThrottleRate(int multiplier, boolean paused) {
+        if (paused) {
+            return lang.getMessage("commands.status.rate-paused");
+        }
+        if (multiplier > 1) {
+            return lang.getMessage("commands.status.rate-slowed", "{multiplier}", String.valueOf(multiplier));
+        }
+        return lang.getMessage("commands.status.rate-full");
+    }
+    
+    private void handleStorage(CommandSender sender, String[] args) {
+        if (args.length < 2) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("errors.invalid-syntax"));
+            return;
+        }
+        
+        if ("migrate".equalsIgnoreCase(args[1])) {
+            handleStorageMigrate(sender, args);
+            return;
+        }
+        if ("reload".equalsIgnoreCase(args[1])) {
+            handleStorageReload(sender, args);
+            return;
+        }
+        
+        StorageFormat format = args.length >= 3 ? StorageFormat.fromString(args[2]) : StorageFormat.YAML;
+        if (format == null) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.storage.invalid-format"));
+            return;
+        }
+        
+        File file = storage.getExportFile(format);
+        switch (args[1].toLowerCase()) {
+            case "export":
+                storage.exportStorage(format, (count, error) -> {
+                    if (error != null) {
+                        sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.storage.export-failed",
+                            "{error}", String.valueOf(error.getMessage())));
+                        return;
+                    }
+                    sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.storage.export-success",
+                        "{count}", String.valueOf(count), "{file}", file.getName()));
+                });
+                break;
+            case "import":
+                if (!file.exists()) {
+                    sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.storage.file-not-found",
+                        "{file}", file.getName()));
+                    return;
+                }
+                
+                storage.importStorage(format, (count, error) -> {
+                    if (error instanceof FileNotFoundException) {
+                        sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.storage.file-not-found",
+                            "{file}", file.getName()));
+                    } else if (error != null) {
+                        sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.storage.import-failed",
+                            "{error}", String.valueOf(error.getMessage())));
+                    } else {
+                        sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.storage.import-success",
+                            "{count}", String.valueOf(count), "{file}", file.getName()));
+                    }
+                });
+                break;
+            default:
+                sender.sendMessage(lang.getPrefix() + lang.getMessage("errors.invalid-syntax"));
+                break;
+        }
+    }
+    
+    private void handleStorageReload(CommandSender sender, String[] args) {
+        String namespace = args.length >= 3 ? args[2] : null;
+        if (namespace != null && !VirtualCommandBlock.isValidNamespace(namespace)) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.storage.invalid-namespace",
+                "{namespace}", namespace));
+            return;
+        }
+        String displayName = namespace != null ? namespace : lang.getMessage("commands.storage.default-namespace");
+        
+        storage.reloadNamespace(namespace, (count, error) -> {
+            if (error != null) {
+                sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.storage.reload-failed",
+                    "{namespace}", displayName, "{error}", String.valueOf(error.getMessage())));
+                return;
+            }
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.storage.reload-success",
+                "{count}", String.valueOf(count), "{namespace}", displayName));
+        });
+    }
+    
+    private void handleStorageMigrate(CommandSender sender, String[] args) {
+        if (args.length < 3) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("errors.invalid-syntax"));
+            return;
+        }
+        
+        String backendName = args[2].toLowerCase();
+        if (!FileStorageBackend.NAME.equals(backendName) && !SqliteStorageBackend.NAME.equals(backendName)) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.storage.invalid-backend"));
+            return;
+        }
+        
+        if (backendName.equals(storage.getBackend().getName())) {
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.storage.already-active",
+                "{backend}", backendName));
+            return;
+        }
+        
+        StorageBackend target = storage.createBackend(backendName);
+        int count = storage.getCommandBlockNames().size();
+        storage.migrateStorage(target, error -> {
+            if (error != null) {
+                sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.storage.migrate-failed",
+                    "{error}", String.valueOf(error.getMessage())));
+                return;
+            }
+            sender.sendMessage(lang.getPrefix() + lang.getMessage("commands.storage.migrate-success",
+                "{count}", String.valueOf(count), "{backend}", backendName));
+        });
+    }
+    
     private void handleLanguage(CommandSender sender, String[] args) {
         if (args.length < 2) {
             // Toggle between en and ru
@@ -382,6 +1242,11 @@ public class FastCMDCommand implements CommandExecutor {
         sender.sendMessage(lang.getMessage("commands.help.delete"));
         sender.sendMessage(lang.getMessage("commands.help.change"));
         sender.sendMessage(lang.getMessage("commands.help.stop"));
+        sender.sendMessage(lang.getMessage("commands.help.status"));
+        sender.sendMessage(lang.getMessage("commands.help.load"));
+        sender.sendMessage(lang.getMessage("commands.help.stats"));
+        sender.sendMessage(lang.getMessage("commands.help.graph"));
+        sender.sendMessage(lang.getMessage("commands.help.storage"));
         sender.sendMessage(lang.getMessage("commands.help.lang"));
         sender.sendMessage(lang.getMessage("commands.help.help"));
         sender.sendMessage(lang.getMessage("commands.help.types"));
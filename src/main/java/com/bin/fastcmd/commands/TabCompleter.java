@@ -1,7 +1,10 @@
 package com.bin.fastcmd.commands;
 
 import com.bin.fastcmd.FastCMD;
+import com.bin.fastcmd.models.BlockPriority;
+import com.bin.fastcmd.models.ClockMode;
 import com.bin.fastcmd.models.CommandBlockType;
+import com.bin.fastcmd.models.ExecutionCondition;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 
@@ -16,9 +19,17 @@ import java.util.stream.Collectors;
 public class TabCompleter implements org.bukkit.command.TabCompleter {
     
     private final FastCMD plugin;
-    private final List<String> subCommands = Arrays.asList("create", "run", "delete", "change", "stop", "help", "lang");
+    private final List<String> subCommands = Arrays.asList("create", "run", "delete", "change", "stop", "status", "load", "stats", "graph", "storage", "help", "lang");
     private final List<String> languages = Arrays.asList("en", "ru");
-    private final List<String> flags = Arrays.asList("--name:", "--type:", "--delay:", "--disable:", "--connected:");
+    private final List<String> storageActions = Arrays.asList("export", "import", "migrate", "reload");
+    private final List<String> storageBackends = Arrays.asList("file", "sqlite");
+    private final List<String> storageFormats = Arrays.asList("yaml", "binary");
+    private final List<String> phases = Arrays.asList("auto", "0");
+    private final List<String> cronShortcuts = Arrays.asList("@hourly", "@daily", "@weekly", "@monthly", "\"0 4 * * *\"");
+    private final List<String> loadTicks = Arrays.asList("20", "100", "200", "1200");
+    private final List<String> statsTops = Arrays.asList("--top:5", "--top:10", "--top:50");
+    private final List<String> flags = Arrays.asList("--name:", "--type:", "--delay:", "--disable:", "--connected:", "--spread:", "--namespace:", "--tags:", "--phase:", "--priority:", "--if:", "--clock:", "--cron:");
+    private final List<String> selectors = Arrays.asList("--tag:", "--match:", "--regex:");
     
     public TabCompleter(FastCMD plugin) {
         this.plugin = plugin;
@@ -45,13 +56,51 @@ public class TabCompleter implements org.bukkit.command.TabCompleter {
                     completions.addAll(handleCreateTabComplete(args));
                     break;
                 case "run":
-                case "delete":
                 case "stop":
-                    completions.addAll(handleNameFlagTabComplete(args));
+                    completions.addAll(handleNameFlagTabComplete(args, true));
+                    break;
+                case "delete":
+                case "status":
+                case "graph":
+                    completions.addAll(handleNameFlagTabComplete(args, false));
                     break;
                 case "change":
                     completions.addAll(handleChangeTabComplete(args));
                     break;
+                case "storage":
+                    if (args.length == 2) {
+                        completions.addAll(storageActions.stream()
+                            .filter(action -> action.startsWith(args[1].toLowerCase()))
+                            .collect(Collectors.toList()));
+                    } else if (args.length == 3 && "migrate".equalsIgnoreCase(args[1])) {
+                        completions.addAll(storageBackends.stream()
+                            .filter(backend -> backend.startsWith(args[2].toLowerCase()))
+                            .collect(Collectors.toList()));
+                    } else if (args.length == 3 && "reload".equalsIgnoreCase(args[1])) {
+                        completions.addAll(plugin.getStorageManager().getNamespaces().stream()
+                            .filter(namespace -> namespace.toLowerCase().startsWith(args[2].toLowerCase()))
+                            .collect(Collectors.toList()));
+                    } else if (args.length == 3) {
+                        completions.addAll(storageFormats.stream()
+                            .filter(format -> format.startsWith(args[2].toLowerCase()))
+                            .collect(Collectors.toList()));
+                    }
+                    break;
+                case "load":
+                    if (args.length == 2) {
+                        completions.addAll(loadTicks.stream()
+                            .filter(ticks -> ticks.startsWith(args[1]))
+                            .collect(Collectors.toList()));
+                    }
+                    break;
+                case "stats":
+                    if (args.length == 2) {
+                        completions.addAll(handleNameFlagTabComplete(args, false));
+                        completions.addAll(statsTops.stream()
+                            .filter(top -> top.startsWith(args[1].toLowerCase()))
+                            .collect(Collectors.toList()));
+                    }
+                    break;
                 case "lang":
                     if (args.length == 2) {
                         completions.addAll(languages.stream()
@@ -94,12 +143,21 @@ public class TabCompleter implements org.bukkit.command.TabCompleter {
                     }
                 }
             } else if (lastArg.startsWith("--connected:")) {
-                String partial = lastArg.substring(12); // Remove --connected:
-                for (String name : getCommandBlockNames("")) {
-                    if (name.toLowerCase().startsWith(partial.toLowerCase())) {
-                        completions.add("--connected:" + name);
-                    }
-                }
+                completions.addAll(getConnectedCompletions(lastArg.substring(12))); // Remove --connected:
+            } else if (lastArg.startsWith("--namespace:")) {
+                completions.addAll(getNamespaceCompletions(lastArg.substring(12))); // Remove --namespace:
+            } else if (lastArg.startsWith("--tags:")) {
+                completions.addAll(getTagCompletions("--tags:", lastArg.substring(7))); // Remove --tags:
+            } else if (lastArg.startsWith("--phase:")) {
+                completions.addAll(getPhaseCompletions(lastArg.substring(8))); // Remove --phase:
+            } else if (lastArg.startsWith("--priority:")) {
+                completions.addAll(getPriorityCompletions(lastArg.substring(11))); // Remove --priority:
+            } else if (lastArg.startsWith("--if:")) {
+                completions.addAll(getConditionCompletions(lastArg.substring(5))); // Remove --if:
+            } else if (lastArg.startsWith("--clock:")) {
+                completions.addAll(getClockCompletions(lastArg.substring(8))); // Remove --clock:
+            } else if (lastArg.startsWith("--cron:")) {
+                completions.addAll(getCronCompletions(lastArg.substring(7))); // Remove --cron:
             } else if (lastArg.startsWith("--name:")) {
                 // Don't auto-complete names, let user type their own
                 completions.add(lastArg + "myblock");
@@ -159,23 +217,40 @@ public class TabCompleter implements org.bukkit.command.TabCompleter {
                     }
                 }
             } else if (lastArg.startsWith("--connected:")) {
-                String partial = lastArg.substring(12);
-                for (String name : getCommandBlockNames("")) {
-                    if (name.toLowerCase().startsWith(partial.toLowerCase())) {
-                        completions.add("--connected:" + name);
-                    }
-                }
+                completions.addAll(getConnectedCompletions(lastArg.substring(12)));
+            } else if (lastArg.startsWith("--namespace:")) {
+                completions.addAll(getNamespaceCompletions(lastArg.substring(12)));
+            } else if (lastArg.startsWith("--tags:")) {
+                completions.addAll(getTagCompletions("--tags:", lastArg.substring(7)));
+            } else if (lastArg.startsWith("--tag:")) {
+                completions.addAll(getTagCompletions("--tag:", lastArg.substring(6)));
+            } else if (lastArg.startsWith("--phase:")) {
+                completions.addAll(getPhaseCompletions(lastArg.substring(8)));
+            } else if (lastArg.startsWith("--priority:")) {
+                completions.addAll(getPriorityCompletions(lastArg.substring(11)));
+            } else if (lastArg.startsWith("--if:")) {
+                completions.addAll(getConditionCompletions(lastArg.substring(5)));
+            } else if (lastArg.startsWith("--clock:")) {
+                completions.addAll(getClockCompletions(lastArg.substring(8)));
+            } else if (lastArg.startsWith("--cron:")) {
+                completions.addAll(getCronCompletions(lastArg.substring(7)));
             } else {
-                // Show available flags
+                // Show available flags and selectors
                 for (String flag : flags) {
                     if (flag.toLowerCase().startsWith(lastArg.toLowerCase())) {
                         completions.add(flag);
                     }
                 }
+                for (String selector : selectors) {
+                    if (selector.startsWith(lastArg.toLowerCase())) {
+                        completions.add(selector);
+                    }
+                }
             }
         } else {
             // Show flags and backtick option
             completions.addAll(flags);
+            completions.addAll(selectors);
             if (lastArg.isEmpty()) {
                 completions.add("`new command`");
             }
@@ -184,7 +259,7 @@ public class TabCompleter implements org.bukkit.command.TabCompleter {
         return completions;
     }
     
-    private List<String> handleNameFlagTabComplete(String[] args) {
+    private List<String> handleNameFlagTabComplete(String[] args, boolean allowSelectors) {
         List<String> completions = new ArrayList<>();
         String lastArg = args[args.length - 1];
         
@@ -195,20 +270,113 @@ public class TabCompleter implements org.bukkit.command.TabCompleter {
                     completions.add("--name:" + name);
                 }
             }
+        } else if (allowSelectors && lastArg.startsWith("--tag:")) {
+            completions.addAll(getTagCompletions("--tag:", lastArg.substring(6))); // Remove --tag:
         } else if (lastArg.startsWith("--")) {
             if ("--name:".startsWith(lastArg)) {
                 completions.add("--name:");
             }
+            if (allowSelectors) {
+                for (String selector : selectors) {
+                    if (selector.startsWith(lastArg.toLowerCase())) {
+                        completions.add(selector);
+                    }
+                }
+            }
         } else {
             // Show both old syntax (direct name) and new syntax (--name:)
             completions.add("--name:");
+            if (allowSelectors) {
+                completions.addAll(selectors);
+            }
             completions.addAll(getCommandBlockNames(lastArg));
         }
         
         return completions;
     }
     
+    /**
+     * Complete the last of the comma separated connected blocks
+     */
+    private List<String> getConnectedCompletions(String partial) {
+        int comma = partial.lastIndexOf(',');
+        String prefix = "--connected:" + partial.substring(0, comma + 1);
+        return getCommandBlockNames(partial.substring(comma + 1)).stream()
+            .map(name -> prefix + name)
+            .collect(Collectors.toList());
+    }
+    
+    private List<String> getPhaseCompletions(String partial) {
+        return phases.stream()
+            .filter(phase -> phase.startsWith(partial.toLowerCase()))
+            .map(phase -> "--phase:" + phase)
+            .collect(Collectors.toList());
+    }
+    
+    private List<String> getPriorityCompletions(String partial) {
+        List<String> completions = new ArrayList<>();
+        for (BlockPriority priority : BlockPriority.values()) {
+            if (priority.getName().startsWith(partial.toLowerCase())) {
+                completions.add("--priority:" + priority.getName());
+            }
+        }
+        return completions;
+    }
+    
+    private List<String> getConditionCompletions(String partial) {
+        List<String> completions = new ArrayList<>();
+        for (ExecutionCondition condition : ExecutionCondition.values()) {
+            if (condition.getName().startsWith(partial.toLowerCase())) {
+                completions.add("--if:" + condition.getName());
+            }
+        }
+        return completions;
+    }
+    
+    private List<String> getClockCompletions(String partial) {
+        List<String> completions = new ArrayList<>();
+        for (ClockMode mode : ClockMode.values()) {
+            if (mode.getName().startsWith(partial.toLowerCase())) {
+                completions.add("--clock:" + mode.getName());
+            }
+        }
+        return completions;
+    }
+    
+    private List<String> getCronCompletions(String partial) {
+        return cronShortcuts.stream()
+            .filter(cron -> cron.startsWith(partial.toLowerCase()))
+            .map(cron -> "--cron:" + cron)
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * Complete the last of the comma separated tags after the given flag
+     */
+    private List<String> getTagCompletions(String flag, String partial) {
+        if (!plugin.getStorageManager().isReady()) {
+            return new ArrayList<>();
+        }
+        int comma = partial.lastIndexOf(',');
+        String prefix = flag + partial.substring(0, comma + 1);
+        String last = partial.substring(comma + 1).toLowerCase();
+        return plugin.getStorageManager().getTags().stream()
+            .filter(tag -> tag.startsWith(last))
+            .map(tag -> prefix + tag)
+            .collect(Collectors.toList());
+    }
+    
+    private List<String> getNamespaceCompletions(String partial) {
+        return plugin.getStorageManager().getNamespaces().stream()
+            .filter(namespace -> namespace.toLowerCase().startsWith(partial.toLowerCase()))
+            .map(namespace -> "--namespace:" + namespace)
+            .collect(Collectors.toList());
+    }
+    
     private List<String> getCommandBlockNames(String partial) {
+        if (!plugin.getStorageManager().isReady()) {
+            return new ArrayList<>();
+        }
         return plugin.getStorageManager().getCommandBlockNames().stream()
             .filter(name -> name.toLowerCase().startsWith(partial.toLowerCase()))
             .collect(Collectors.toList());
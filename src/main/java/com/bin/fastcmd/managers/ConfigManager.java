@@ -1,10 +1,15 @@
 package com.bin.fastcmd.managers;
 
 import com.bin.fastcmd.FastCMD;
+import com.bin.fastcmd.models.CatchUpPolicy;
+import com.bin.fastcmd.models.ClockMode;
+import com.bin.fastcmd.storage.StorageFormat;
 import org.bukkit.configuration.file.FileConfiguration;
 
 import java.io.File;
 import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.ZoneId;
 import java.util.List;
 
 /**
@@ -30,6 +35,11 @@ public class ConfigManager {
         
         // Set UTF-8 encoding
         System.setProperty("file.encoding", "UTF-8");
+        
+        // The scheduler caches settings it checks for every dispatched block
+        if (plugin.getTaskManager() != null) {
+            plugin.getTaskManager().reloadSettings();
+        }
     }
     
     public String getLanguage() {
@@ -73,6 +83,112 @@ public class ConfigManager {
         return config.getLong("commands.default-disable-time", 0);
     }
     
+    public String getStorageBackend() {
+        return config.getString("storage.backend", "file");
+    }
+    
+    public void setStorageBackend(String backend) {
+        config.set("storage.backend", backend);
+        plugin.saveConfig();
+    }
+    
+    public StorageFormat getStorageFormat() {
+        StorageFormat format = StorageFormat.fromString(config.getString("storage.format", "yaml"));
+        return format != null ? format : StorageFormat.YAML;
+    }
+    
+    public long getSaveDelay() {
+        return Math.max(1, config.getLong("storage.save-delay", 40));
+    }
+    
+    public long getMaxSaveLatency() {
+        return Math.max(1, config.getLong("storage.max-save-latency", 200));
+    }
+    
+    public long getJournalCompactSize() {
+        return config.getLong("storage.journal-compact-size", 1048576);
+    }
+    
+    public long getResumeSpread() {
+        return Math.max(0, config.getLong("scheduler.resume-spread", 20));
+    }
+    
+    public int getMaxDispatchPerTick() {
+        return Math.max(0, config.getInt("scheduler.max-dispatch-per-tick", 0));
+    }
+    
+    public long getTickBudgetNanos() {
+        return Math.max(0, config.getLong("scheduler.tick-budget-nanos", 0));
+    }
+    
+    public ClockMode getDefaultClock() {
+        ClockMode clock = ClockMode.fromString(config.getString("scheduler.default-clock", "tick"));
+        return clock != null ? clock : ClockMode.TICK;
+    }
+    
+    public boolean isThrottleEnabled() {
+        return config.getBoolean("scheduler.throttle.enabled", true);
+    }
+    
+    public long getThrottleCheckInterval() {
+        return Math.max(1, config.getLong("scheduler.throttle.check-interval", 40));
+    }
+    
+    public double getThrottleSlowMspt() {
+        return config.getDouble("scheduler.throttle.slow-mspt", 55);
+    }
+    
+    public double getThrottlePauseMspt() {
+        return config.getDouble("scheduler.throttle.pause-mspt", 100);
+    }
+    
+    public double getThrottleRecoverMspt() {
+        return config.getDouble("scheduler.throttle.recover-mspt", 51);
+    }
+    
+    public int getThrottleMaxMultiplier() {
+        return Math.max(1, config.getInt("scheduler.throttle.max-multiplier", 8));
+    }
+    
+    public CatchUpPolicy getCronCatchUp() {
+        CatchUpPolicy policy = CatchUpPolicy.fromString(config.getString("scheduler.cron.catch-up", "once"));
+        return policy != null ? policy : CatchUpPolicy.ONCE;
+    }
+    
+    /**
+     * Time zone cron expressions are evaluated in, the server's own zone unless one is configured
+     */
+    public ZoneId getCronTimeZone() {
+        String zone = config.getString("scheduler.cron.time-zone", "");
+        if (zone == null || zone.isEmpty()) {
+            return ZoneId.systemDefault();
+        }
+        try {
+            return ZoneId.of(zone);
+        } catch (DateTimeException e) {
+            return ZoneId.systemDefault();
+        }
+    }
+    
+    /**
+     * Commands of blocks running at least this long are logged in debug mode
+     */
+    public long getSlowDispatchNanos() {
+        return Math.max(0, config.getLong("scheduler.slow-dispatch-micros", 5000)) * 1000;
+    }
+    
+    public boolean isJmxEnabled() {
+        return config.getBoolean("monitoring.jmx", true);
+    }
+    
+    public boolean isPrometheusEnabled() {
+        return config.getBoolean("monitoring.prometheus.enabled", false);
+    }
+    
+    public int getPrometheusPort() {
+        return config.getInt("monitoring.prometheus.port", 9465);
+    }
+    
     public boolean isDebugMode() {
         return config.getBoolean("debug", false);
     }
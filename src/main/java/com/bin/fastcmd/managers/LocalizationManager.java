@@ -20,12 +20,14 @@ public class LocalizationManager {
     private final FastCMD plugin;
     private FileConfiguration langConfig;
     private String currentLanguage;
+    private volatile long loadNanos = -1;
     
     public LocalizationManager(FastCMD plugin) {
         this.plugin = plugin;
     }
     
     public void loadLanguage() {
+        long startTime = System.nanoTime();
         currentLanguage = plugin.getConfigManager().getLanguage();
         
         // Create lang folder if it doesn't exist
@@ -70,6 +72,14 @@ public class LocalizationManager {
                 langConfig = new YamlConfiguration();
             }
         }
+        loadNanos = System.nanoTime() - startTime;
+    }
+    
+    /**
+     * How long the last (re)load of the language file took
+     */
+    public long getLoadNanos() {
+        return loadNanos;
     }
     
     public String getMessage(String path) {
@@ -1,111 +1,619 @@
 package com.bin.fastcmd.managers;
 
 import com.bin.fastcmd.FastCMD;
-import com.bin.fastcmd.models.CommandBlockType;
+import com.bin.fastcmd.models.ConnectedLink;
+import com.bin.fastcmd.models.ExecutionGraph;
 import com.bin.fastcmd.models.VirtualCommandBlock;
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
+import com.bin.fastcmd.storage.FileStorageBackend;
+import com.bin.fastcmd.storage.SnapshotFiles;
+import com.bin.fastcmd.storage.SqliteStorageBackend;
+import com.bin.fastcmd.storage.StorageBackend;
+import com.bin.fastcmd.storage.StorageFormat;
+import com.bin.fastcmd.storage.StorageMutation;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 
 /**
- * Manages storage of virtual command blocks with UTF-8 support
+ * Manages storage of virtual command blocks with UTF-8 support.
+ * Blocks are kept in memory; mutations are handed to the configured {@link StorageBackend}
+ * by a debounced flush running on a background thread. Loading also happens in the background,
+ * and the registry is published on the main thread once it is complete.
+ * Blocks are only changed on the main thread, but may be looked up from any thread.
  */
 public class StorageManager {
     
     private final FastCMD plugin;
-    private File storageFile;
-    private FileConfiguration storageConfig;
+    // Swapped on the storage thread by a migration
+    private volatile StorageBackend backend;
     private Map<String, VirtualCommandBlock> commandBlocks;
+    private final Map<String, StorageMutation> pendingMutations;
+    private ExecutionGraph executionGraph = ExecutionGraph.empty();
+    private int graphRevision;
+    private boolean graphCompileScheduled;
+    private Map<String, List<VirtualCommandBlock>> tagIndex;
+    private int revision;
+    private final List<Runnable> readyCallbacks;
+    private final List<BlockListener> blockListeners;
+    private volatile boolean ready;
+    
+    private final ExecutorService saveExecutor;
+    private BukkitTask flushTask;
+    private boolean dirty;
+    private long dirtyTicks;
+    private long quietTicks;
+    
+    // Read by monitoring from other threads
+    private volatile long loadNanos = -1;
+    private volatile long lastSaveNanos = -1;
+    private volatile long lastSaveBytes = -1;
+    private final AtomicLong saveCount = new AtomicLong();
+    private final AtomicLong saveNanos = new AtomicLong();
     
     public StorageManager(FastCMD plugin) {
         this.plugin = plugin;
-        this.commandBlocks = new HashMap<>();
-        this.storageFile = new File(plugin.getDataFolder(), "storage.yml");
+        this.commandBlocks = new ConcurrentHashMap<>();
+        this.pendingMutations = new LinkedHashMap<>();
+        this.readyCallbacks = new ArrayList<>();
+        this.blockListeners = new ArrayList<>();
+        this.saveExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "FastCMD-Storage");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
     
+    /**
+     * Start loading command blocks on the storage thread. Until they are published,
+     * {@link #isReady()} is false and the registry is empty.
+     */
     public void loadStorage() {
-        // Create data folder if it doesn't exist
-        if (!plugin.getDataFolder().exists()) {
-            plugin.getDataFolder().mkdirs();
+        backend = createBackend(plugin.getConfigManager().getStorageBackend());
+        StorageBackend loadingBackend = backend;
+        
+        saveExecutor.execute(() -> {
+            long startTime = System.nanoTime();
+            Map<String, VirtualCommandBlock> loaded;
+            ExecutionGraph graph;
+            try {
+                loadingBackend.open();
+                loaded = loadingBackend.load();
+                
+                // Nothing else sees the loaded blocks yet, so their graph is compiled here as well
+                graph = ExecutionGraph.compile(loaded.values());
+            } catch (IOException e) {
+                plugin.getLogger().severe("Failed to load command blocks from " + loadingBackend.getName() + " storage: " + e.getMessage());
+                loaded = new HashMap<>();
+                graph = ExecutionGraph.empty();
+            } catch (RuntimeException e) {
+                // Broken stored data; starting with no blocks could overwrite it, so the plugin stops instead
+                plugin.getLogger().log(Level.SEVERE, "Failed to read command blocks from " + loadingBackend.getName()
+                    + " storage, disabling FastCMD so the stored blocks are left untouched", e);
+                if (plugin.isEnabled()) {
+                    plugin.getServer().getScheduler().runTask(plugin,
+                        () -> plugin.getServer().getPluginManager().disablePlugin(plugin));
+                }
+                return;
+            }
+            
+            ExecutionGraph loadedGraph = graph;
+            loadNanos = System.nanoTime() - startTime;
+            long loadMillis = TimeUnit.NANOSECONDS.toMillis(loadNanos);
+            
+            Map<String, VirtualCommandBlock> result = loaded;
+            if (plugin.isEnabled()) {
+                plugin.getServer().getScheduler().runTask(plugin, () -> publish(result, loadedGraph, loadMillis));
+            }
+        });
+    }
+    
+    private void publish(Map<String, VirtualCommandBlock> loaded, ExecutionGraph graph, long loadMillis) {
+        boolean empty = commandBlocks.isEmpty();
+        commandBlocks.putAll(loaded);
+        blocksChanged();
+        blocksReplaced();
+        if (empty) {
+            publishGraph(graph, revision);
         }
+        ready = true;
+        plugin.getLogger().info("Loaded " + commandBlocks.size() + " virtual command blocks from "
+            + backend.getName() + " storage in " + loadMillis + " ms");
         
-        // Create storage file from template if it doesn't exist
-        if (!storageFile.exists()) {
-            plugin.saveResource("storage.yml", false);
+        // Loops with a delay are allowed, and blocks saved by older versions may contain same-tick cycles
+        for (List<String> cycle : graph.getCycles()) {
+            plugin.getLogger().warning("Connected command blocks form a cycle: " + String.join(" -> ", cycle));
         }
         
+        startFlushTask();
+        
+        List<Runnable> callbacks = new ArrayList<>(readyCallbacks);
+        readyCallbacks.clear();
+        for (Runnable callback : callbacks) {
+            callback.run();
+        }
+    }
+    
+    /**
+     * Whether command blocks have been loaded and published
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * Run an action on the main thread once command blocks are loaded, or right away if they already are
+     */
+    public void whenReady(Runnable action) {
+        if (ready) {
+            action.run();
+        } else {
+            readyCallbacks.add(action);
+        }
+    }
+    
+    /**
+     * Create the backend registered under the given name, falling back to file storage
+     */
+    public StorageBackend createBackend(String name) {
+        if (SqliteStorageBackend.NAME.equalsIgnoreCase(name)) {
+            return new SqliteStorageBackend(plugin);
+        }
+        return new FileStorageBackend(plugin, plugin.getConfigManager().getStorageFormat());
+    }
+    
+    /**
+     * Write a full snapshot of all command blocks on the storage thread, after any pending background writes.
+     * The callback runs on the main thread with the error, or null once the snapshot is written.
+     */
+    public void saveStorage(Consumer<IOException> callback) {
+        pendingMutations.clear();
+        dirty = false;
+        Map<String, Map<String, Object>> snapshot = SnapshotFiles.toSnapshot(commandBlocks);
+        runOnStorageThread(() -> {
+            writeSnapshot(snapshot);
+            return null;
+        }, (result, error) -> callback.accept(error));
+    }
+    
+    /**
+     * Stop the flush task and persist any unsaved changes before the plugin is disabled
+     */
+    public void shutdown() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        
+        if (dirty) {
+            flush();
+        }
+        
+        saveExecutor.shutdown();
         try {
-            // Load with UTF-8 encoding
-            String content = new String(Files.readAllBytes(storageFile.toPath()), StandardCharsets.UTF_8);
-            storageConfig = YamlConfiguration.loadConfiguration(new InputStreamReader(
-                new java.io.ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), 
-                StandardCharsets.UTF_8
-            ));
-        } catch (IOException e) {
-            plugin.getLogger().severe("Failed to load storage.yml: " + e.getMessage());
-            storageConfig = new YamlConfiguration();
-        }
-        
-        // Load command blocks from storage
-        ConfigurationSection blocksSection = storageConfig.getConfigurationSection("virtual-command-blocks");
-        if (blocksSection != null) {
-            for (String name : blocksSection.getKeys(false)) {
-                ConfigurationSection blockSection = blocksSection.getConfigurationSection(name);
-                if (blockSection != null) {
-                    try {
-                        VirtualCommandBlock block = VirtualCommandBlock.fromMap(name, blockSection.getValues(false));
-                        commandBlocks.put(name, block);
-                    } catch (Exception e) {
-                        plugin.getLogger().warning("Failed to load command block '" + name + "': " + e.getMessage());
-                    }
-                }
+            if (!saveExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                plugin.getLogger().severe("Timed out waiting for command blocks to be saved");
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            plugin.getLogger().severe("Interrupted while waiting for command blocks to be saved");
+        }
+        
+        if (backend != null) {
+            backend.close();
+        }
+    }
+    
+    private void startFlushTask() {
+        if (flushTask != null) {
+            return;
+        }
+        flushTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::tickFlush, 1L, 1L);
+    }
+    
+    private void tickFlush() {
+        if (!dirty) {
+            return;
         }
         
-        plugin.getLogger().info("Loaded " + commandBlocks.size() + " virtual command blocks");
+        dirtyTicks++;
+        quietTicks++;
+        
+        // Flush once edits have settled, but never hold changes longer than the max latency
+        if (quietTicks >= plugin.getConfigManager().getSaveDelay()
+                || dirtyTicks >= plugin.getConfigManager().getMaxSaveLatency()) {
+            flush();
+        }
+    }
+    
+    /**
+     * Hand pending mutations to the storage thread
+     */
+    private void flush() {
+        List<StorageMutation> mutations = new ArrayList<>(pendingMutations.values());
+        pendingMutations.clear();
+        dirty = false;
+        saveExecutor.execute(() -> writeMutations(mutations));
+    }
+    
+    private void recordMutation(StorageMutation mutation) {
+        // Only the latest mutation per block needs to be persisted
+        pendingMutations.remove(mutation.getName());
+        pendingMutations.put(mutation.getName(), mutation);
+        markDirty();
+    }
+    
+    private void markDirty() {
+        if (!dirty) {
+            dirty = true;
+            dirtyTicks = 0;
+        }
+        quietTicks = 0;
     }
     
-    public void saveStorage() {
+    private void writeMutations(List<StorageMutation> mutations) {
+        long startTime = System.nanoTime();
         try {
-            // Clear existing data
-            storageConfig.set("virtual-command-blocks", null);
+            backend.write(mutations);
+            recordSave(startTime);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to save command blocks: " + e.getMessage());
+        }
+    }
+    
+    private void writeSnapshot(Map<String, Map<String, Object>> snapshot) throws IOException {
+        long startTime = System.nanoTime();
+        backend.writeSnapshot(snapshot);
+        recordSave(startTime);
+    }
+    
+    /**
+     * Run storage work on the storage thread, after any pending background writes,
+     * and hand its result or error to the callback on the main thread
+     */
+    private <T> void runOnStorageThread(Callable<T> work, BiConsumer<T, IOException> callback) {
+        saveExecutor.execute(() -> {
+            T result = null;
+            IOException error = null;
+            try {
+                result = work.call();
+            } catch (IOException e) {
+                error = e;
+            } catch (Exception e) {
+                error = new IOException(e.getMessage(), e);
+            }
             
-            // Save all command blocks
-            ConfigurationSection blocksSection = storageConfig.createSection("virtual-command-blocks");
-            for (Map.Entry<String, VirtualCommandBlock> entry : commandBlocks.entrySet()) {
-                ConfigurationSection blockSection = blocksSection.createSection(entry.getKey());
-                Map<String, Object> blockData = entry.getValue().toMap();
-                for (Map.Entry<String, Object> dataEntry : blockData.entrySet()) {
-                    blockSection.set(dataEntry.getKey(), dataEntry.getValue());
+            T finalResult = result;
+            IOException finalError = error;
+            if (plugin.isEnabled()) {
+                plugin.getServer().getScheduler().runTask(plugin, () -> callback.accept(finalResult, finalError));
+            }
+        });
+    }
+    
+    private void recordSave(long startTime) {
+        lastSaveNanos = System.nanoTime() - startTime;
+        lastSaveBytes = backend.getSize();
+        saveNanos.addAndGet(lastSaveNanos);
+        saveCount.incrementAndGet();
+    }
+    
+    /**
+     * How long loading command blocks took when the plugin was enabled, or -1 while they are loading
+     */
+    public long getLoadNanos() {
+        return loadNanos;
+    }
+    
+    /**
+     * How long the last write to the backend took, or -1 if nothing was saved yet
+     */
+    public long getLastSaveNanos() {
+        return lastSaveNanos;
+    }
+    
+    /**
+     * Size of the storage on disk after the last write, or -1 if nothing was saved yet
+     */
+    public long getLastSaveBytes() {
+        return lastSaveBytes;
+    }
+    
+    public long getSaveCount() {
+        return saveCount.get();
+    }
+    
+    /**
+     * Time spent writing to the backend since the plugin was enabled
+     */
+    public long getTotalSaveNanos() {
+        return saveNanos.get();
+    }
+    
+    /**
+     * Replace the blocks of one namespace with what is currently persisted for it.
+     * Pending changes are written first, and running blocks of the namespace are stopped when they are replaced.
+     * The callback runs on the main thread with the number of reloaded blocks, or the error.
+     *
+     * @param namespace the namespace, or null for blocks without one
+     */
+    public void reloadNamespace(String namespace, BiConsumer<Integer, IOException> callback) {
+        if (dirty) {
+            flush();
+        }
+        
+        runOnStorageThread(() -> backend.loadNamespace(namespace), (reloaded, error) -> {
+            if (error != null) {
+                callback.accept(0, error);
+                return;
+            }
+            
+            for (VirtualCommandBlock block : commandBlocks.values()) {
+                boolean inNamespace = namespace == null
+                    ? block.getNamespace() == null
+                    : namespace.equals(block.getNamespace());
+                if (inNamespace && block.isRunning()) {
+                    plugin.getTaskManager().stopTask(block.getName());
                 }
             }
             
-            // Save with UTF-8 encoding
-            String yamlContent = storageConfig.saveToString();
-            Files.write(storageFile.toPath(), yamlContent.getBytes(StandardCharsets.UTF_8));
+            commandBlocks.values().removeIf(block -> namespace == null
+                ? block.getNamespace() == null
+                : namespace.equals(block.getNamespace()));
+            for (VirtualCommandBlock block : reloaded.values()) {
+                if (!commandBlocks.containsKey(block.getName())) {
+                    commandBlocks.put(block.getName(), block);
+                }
+            }
+            blocksChanged();
+            blocksReplaced();
+            callback.accept(reloaded.size(), null);
+        });
+    }
+    
+    /**
+     * Names of all namespaces currently in use
+     */
+    public Set<String> getNamespaces() {
+        Set<String> namespaces = new TreeSet<>();
+        for (VirtualCommandBlock block : commandBlocks.values()) {
+            if (block.getNamespace() != null) {
+                namespaces.add(block.getNamespace());
+            }
+        }
+        return namespaces;
+    }
+    
+    /**
+     * Copy all command blocks into another backend and make it the active one.
+     * Pending changes still go to the old backend, and later ones to the new backend once it holds the copy.
+     * The callback runs on the main thread with the error, or null once the new backend is active.
+     */
+    public void migrateStorage(StorageBackend target, Consumer<IOException> callback) {
+        if (dirty) {
+            flush();
+        }
+        
+        Map<String, Map<String, Object>> snapshot = SnapshotFiles.toSnapshot(commandBlocks);
+        runOnStorageThread(() -> {
+            try {
+                target.open();
+                target.writeSnapshot(snapshot);
+            } catch (IOException | RuntimeException e) {
+                target.close();
+                throw e;
+            }
             
-        } catch (IOException e) {
-            plugin.getLogger().severe("Failed to save storage.yml: " + e.getMessage());
+            // Swapped on the storage thread so every write queued after this one reaches the new backend
+            backend.close();
+            backend = target;
+            return null;
+        }, (result, error) -> {
+            if (error == null) {
+                plugin.getConfigManager().setStorageBackend(target.getName());
+            }
+            callback.accept(error);
+        });
+    }
+    
+    /**
+     * Write all command blocks to storage-export in the given format.
+     * The callback runs on the main thread with the number of exported blocks, or the error.
+     */
+    public void exportStorage(StorageFormat exportFormat, BiConsumer<Integer, IOException> callback) {
+        File exportFile = getExportFile(exportFormat);
+        Map<String, Map<String, Object>> snapshot = SnapshotFiles.toSnapshot(commandBlocks);
+        runOnStorageThread(() -> {
+            SnapshotFiles.write(exportFile, snapshot, exportFormat);
+            return snapshot.size();
+        }, callback);
+    }
+    
+    /**
+     * Replace all command blocks with the contents of storage-export in the given format.
+     * Running blocks are stopped when they are replaced, and the callback runs on the main thread
+     * with the number of imported blocks, or the error, once they are saved.
+     */
+    public void importStorage(StorageFormat importFormat, BiConsumer<Integer, IOException> callback) {
+        File importFile = getExportFile(importFormat);
+        runOnStorageThread(() -> {
+            if (!importFile.exists()) {
+                throw new FileNotFoundException(importFile.getName());
+            }
+            return SnapshotFiles.read(importFile, importFormat, plugin.getLogger());
+        }, (imported, error) -> {
+            if (error != null) {
+                callback.accept(0, error);
+                return;
+            }
+            
+            // Imported blocks replace everything, so nothing may keep running
+            plugin.getTaskManager().stopAllTasks();
+            commandBlocks.clear();
+            commandBlocks.putAll(imported);
+            blocksChanged();
+            blocksReplaced();
+            saveStorage(saveError -> callback.accept(imported.size(), saveError));
+        });
+    }
+    
+    public File getExportFile(StorageFormat exportFormat) {
+        return new File(plugin.getDataFolder(), "storage-export." + exportFormat.getExtension());
+    }
+    
+    public StorageBackend getBackend() {
+        return backend;
+    }
+    
+    /**
+     * Counter increased every time blocks are added, changed or removed, so views of them know when to rebuild
+     */
+    public int getRevision() {
+        return revision;
+    }
+    
+    /**
+     * Register a listener told about every block added, changed or removed, on the main thread
+     */
+    public void addBlockListener(BlockListener listener) {
+        blockListeners.add(listener);
+    }
+    
+    private void blockChanged(VirtualCommandBlock block) {
+        for (BlockListener listener : blockListeners) {
+            listener.blockChanged(block);
         }
     }
     
+    private void blocksReplaced() {
+        Collection<VirtualCommandBlock> blocks = Collections.unmodifiableCollection(commandBlocks.values());
+        for (BlockListener listener : blockListeners) {
+            listener.blocksReplaced(blocks);
+        }
+    }
+    
+    private void blocksChanged() {
+        tagIndex = null;
+        revision++;
+        scheduleGraphCompile();
+    }
+    
+    /**
+     * Graph of the connected links between all command blocks, compiled again after blocks change.
+     * The graph is compiled on the storage thread, so until it is published the previous one is returned.
+     */
+    public ExecutionGraph getExecutionGraph() {
+        return executionGraph;
+    }
+    
+    /**
+     * Whether the graph returned by {@link #getExecutionGraph()} includes the latest change to the blocks
+     */
+    public boolean isExecutionGraphCurrent() {
+        return graphRevision == revision;
+    }
+    
+    private void scheduleGraphCompile() {
+        // All changes made within a tick share one compile, started by a task in the next tick
+        if (graphCompileScheduled || !plugin.isEnabled()) {
+            return;
+        }
+        graphCompileScheduled = true;
+        plugin.getServer().getScheduler().runTask(plugin, this::compileGraph);
+    }
+    
+    private void compileGraph() {
+        graphCompileScheduled = false;
+        if (isExecutionGraphCurrent() || saveExecutor.isShutdown()) {
+            return;
+        }
+        
+        // Blocks and their links are taken on the main thread, the compile only reads these copies
+        int compiledRevision = revision;
+        VirtualCommandBlock[] blocks = commandBlocks.values().toArray(new VirtualCommandBlock[0]);
+        List<List<ConnectedLink>> connections = new ArrayList<>(blocks.length);
+        for (VirtualCommandBlock block : blocks) {
+            connections.add(block.getConnections());
+        }
+        
+        saveExecutor.execute(() -> {
+            ExecutionGraph graph = ExecutionGraph.compile(blocks, connections);
+            if (plugin.isEnabled()) {
+                plugin.getServer().getScheduler().runTask(plugin, () -> publishGraph(graph, compiledRevision));
+            }
+        });
+    }
+    
+    private void publishGraph(ExecutionGraph graph, int compiledRevision) {
+        // A graph finishing after a newer one was published is dropped
+        if (compiledRevision <= graphRevision) {
+            return;
+        }
+        graph.bind();
+        executionGraph = graph;
+        graphRevision = compiledRevision;
+    }
+    
+    /**
+     * Blocks carrying the given tag, from an index built the first time it is needed after blocks change
+     */
+    public List<VirtualCommandBlock> getCommandBlocksWithTag(String tag) {
+        return getTagIndex().getOrDefault(tag.toLowerCase(Locale.ROOT), Collections.emptyList());
+    }
+    
+    /**
+     * Names of all tags currently in use
+     */
+    public Set<String> getTags() {
+        return new TreeSet<>(getTagIndex().keySet());
+    }
+    
+    private Map<String, List<VirtualCommandBlock>> getTagIndex() {
+        if (tagIndex == null) {
+            tagIndex = new HashMap<>();
+            for (VirtualCommandBlock block : commandBlocks.values()) {
+                for (String tag : block.getTags()) {
+                    tagIndex.computeIfAbsent(tag, k -> new ArrayList<>()).add(block);
+                }
+            }
+        }
+        return tagIndex;
+    }
+    
     public void addCommandBlock(VirtualCommandBlock block) {
         commandBlocks.put(block.getName(), block);
-        saveStorage();
+        blocksChanged();
+        blockChanged(block);
+        recordMutation(StorageMutation.upsert(block));
     }
     
     public void removeCommandBlock(String name) {
         commandBlocks.remove(name);
-        saveStorage();
+        blocksChanged();
+        for (BlockListener listener : blockListeners) {
+            listener.blockRemoved(name);
+        }
+        recordMutation(StorageMutation.delete(name));
     }
     
     public VirtualCommandBlock getCommandBlock(String name) {
@@ -120,12 +628,59 @@ public class StorageManager {
         return commandBlocks.keySet();
     }
     
+    /**
+     * Number of command blocks, safe to read from any thread without copying the registry
+     */
+    public int getBlockCount() {
+        return commandBlocks.size();
+    }
+    
     public Map<String, VirtualCommandBlock> getAllCommandBlocks() {
         return new HashMap<>(commandBlocks);
     }
     
     public void updateCommandBlock(VirtualCommandBlock block) {
         commandBlocks.put(block.getName(), block);
-        saveStorage();
+        blocksChanged();
+        blockChanged(block);
+        recordMutation(StorageMutation.upsert(block));
+    }
+    
+    /**
+     * Save changes made to several blocks at once. The derived views are rebuilt only once, and the changes
+     * are written together by the next flush.
+     */
+    public void updateCommandBlocks(Collection<VirtualCommandBlock> blocks) {
+        for (VirtualCommandBlock block : blocks) {
+            commandBlocks.put(block.getName(), block);
+            recordMutation(StorageMutation.upsert(block));
+            blockChanged(block);
+        }
+        blocksChanged();
+    }
+    
+    /**
+     * Save state the scheduler keeps on a block, such as its last cron run, without counting it as a change to the block
+     */
+    public void persistCommandBlock(VirtualCommandBlock block) {
+        recordMutation(StorageMutation.upsert(block));
+    }
+    
+    /**
+     * Keeps a view of the blocks up to date without scanning all of them after every change
+     */
+    public interface BlockListener {
+        
+        /**
+         * The block was added, or it was changed or replaced by a block with the same name
+         */
+        void blockChanged(VirtualCommandBlock block);
+        
+        void blockRemoved(String name);
+        
+        /**
+         * Many blocks were loaded, reloaded or imported at once; the given view holds all current blocks
+         */
+        void blocksReplaced(Collection<VirtualCommandBlock> blocks);
     }
 }
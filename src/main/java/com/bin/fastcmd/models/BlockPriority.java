@@ -0,0 +1,29 @@
+package com.bin.fastcmd.models;
+
+/**
+ * Priority class of a virtual command block, deciding how it is treated when the server is busy
+ */
+public enum BlockPriority {
+    CRITICAL("critical"),
+    NORMAL("normal"),
+    BACKGROUND("background");
+    
+    private final String name;
+    
+    BlockPriority(String name) {
+        this.name = name;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public static BlockPriority fromString(String name) {
+        for (BlockPriority priority : values()) {
+            if (priority.name.equalsIgnoreCase(name)) {
+                return priority;
+            }
+        }
+        return null;
+    }
+}
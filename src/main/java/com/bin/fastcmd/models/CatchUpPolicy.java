@@ -0,0 +1,28 @@
+package com.bin.fastcmd.models;
+
+/**
+ * What happens to cron runs of a block that were missed while the server was down
+ */
+public enum CatchUpPolicy {
+    SKIP("skip"),
+    ONCE("once");
+    
+    private final String name;
+    
+    CatchUpPolicy(String name) {
+        this.name = name;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public static CatchUpPolicy fromString(String name) {
+        for (CatchUpPolicy policy : values()) {
+            if (policy.name.equalsIgnoreCase(name)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,28 @@
+package com.bin.fastcmd.models;
+
+/**
+ * Clock a virtual command block uses to measure its disable time
+ */
+public enum ClockMode {
+    TICK("tick"),
+    WALL("wall");
+    
+    private final String name;
+    
+    ClockMode(String name) {
+        this.name = name;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public static ClockMode fromString(String name) {
+        for (ClockMode mode : values()) {
+            if (mode.name.equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,50 @@
+package com.bin.fastcmd.models;
+
+import org.bukkit.command.Command;
+
+/**
+ * Command line of a virtual command block resolved against the server's command map,
+ * so running it does not need to split the line or look up the label again
+ */
+public class CompiledCommand {
+    
+    private final String commandLine;
+    private final Command command;
+    private final String label;
+    private final String[] args;
+    private final int generation;
+    
+    public CompiledCommand(String commandLine, Command command, String label, String[] args, int generation) {
+        this.commandLine = commandLine;
+        this.command = command;
+        this.label = label;
+        this.args = args;
+        this.generation = generation;
+    }
+    
+    public String getCommandLine() {
+        return commandLine;
+    }
+    
+    /**
+     * The resolved command, or null if the label was unknown when the line was compiled
+     */
+    public Command getCommand() {
+        return command;
+    }
+    
+    public String getLabel() {
+        return label;
+    }
+    
+    public String[] getArgs() {
+        return args;
+    }
+    
+    /**
+     * Command map generation this was compiled against
+     */
+    public int getGeneration() {
+        return generation;
+    }
+}
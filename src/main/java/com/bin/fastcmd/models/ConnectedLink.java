@@ -0,0 +1,82 @@
+package com.bin.fastcmd.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Link from a virtual command block to a block it triggers, written as name or name@delay.
+ * The delay is waited before the connected block is started, on top of the block's own delay.
+ */
+public final class ConnectedLink {
+    
+    private final String name;
+    private final long delay;
+    
+    public ConnectedLink(String name, long delay) {
+        this.name = name;
+        this.delay = delay;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public long getDelay() {
+        return delay;
+    }
+    
+    /**
+     * Parse comma separated links such as "door,light@10"
+     *
+     * @throws IllegalArgumentException if a link has no name or an invalid delay
+     */
+    public static List<ConnectedLink> parseAll(String value) {
+        List<ConnectedLink> links = new ArrayList<>();
+        for (String part : value.split(",")) {
+            String link = part.trim();
+            if (link.isEmpty()) {
+                continue;
+            }
+            
+            int at = link.lastIndexOf('@');
+            if (at < 0) {
+                links.add(new ConnectedLink(link, 0));
+                continue;
+            }
+            String name = link.substring(0, at);
+            long delay;
+            try {
+                delay = Long.parseLong(link.substring(at + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid delay in " + link);
+            }
+            if (name.isEmpty() || delay < 0) {
+                throw new IllegalArgumentException("Invalid link " + link);
+            }
+            links.add(new ConnectedLink(name, delay));
+        }
+        return links;
+    }
+    
+    /**
+     * Write links the way {@link #parseAll(String)} reads them, or null if there are none
+     */
+    public static String formatAll(List<ConnectedLink> links) {
+        if (links.isEmpty()) {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder();
+        for (ConnectedLink link : links) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(link);
+        }
+        return builder.toString();
+    }
+    
+    @Override
+    public String toString() {
+        return delay > 0 ? name + "@" + delay : name;
+    }
+}
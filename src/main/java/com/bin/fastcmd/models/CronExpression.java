@@ -0,0 +1,207 @@
+package com.bin.fastcmd.models;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * Standard five field cron expression: minute, hour, day of month, month and day of week.
+ * Fields accept *, numbers, names (JAN-DEC, SUN-SAT), ranges, lists and steps such as 1-5, 0,30 and 0-59/15;
+ * the shortcuts @hourly, @daily, @weekly, @monthly and @yearly are accepted too.
+ * As in cron, when both day fields are restricted a day matching either of them matches.
+ */
+public final class CronExpression {
+    
+    private static final String[] MONTH_NAMES = {"JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"};
+    private static final String[] DAY_NAMES = {"SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT"};
+    private static final int SEARCH_YEARS = 5;
+    
+    private final String expression;
+    private final long minutes;
+    private final long hours;
+    private final long daysOfMonth;
+    private final long months;
+    private final long daysOfWeek;
+    private final boolean dayOfMonthRestricted;
+    private final boolean dayOfWeekRestricted;
+    
+    private CronExpression(String expression, String[] fields) {
+        this.expression = expression;
+        this.minutes = parseField(fields[0], 0, 59, null);
+        this.hours = parseField(fields[1], 0, 23, null);
+        this.daysOfMonth = parseField(fields[2], 1, 31, null);
+        this.months = parseField(fields[3], 1, 12, MONTH_NAMES);
+        
+        // Sunday is both 0 and 7
+        long days = parseField(fields[4], 0, 7, DAY_NAMES);
+        this.daysOfWeek = (days | (days >>> 7)) & 0x7F;
+        this.dayOfMonthRestricted = !fields[2].startsWith("*");
+        this.dayOfWeekRestricted = !fields[4].startsWith("*");
+    }
+    
+    /**
+     * Parse a cron expression
+     *
+     * @throws IllegalArgumentException if the expression is not valid
+     */
+    public static CronExpression parse(String expression) {
+        String trimmed = expression.trim();
+        String fields;
+        switch (trimmed.toLowerCase(Locale.ROOT)) {
+            case "@yearly":
+            case "@annually":
+                fields = "0 0 1 1 *";
+                break;
+            case "@monthly":
+                fields = "0 0 1 * *";
+                break;
+            case "@weekly":
+                fields = "0 0 * * 0";
+                break;
+            case "@daily":
+            case "@midnight":
+                fields = "0 0 * * *";
+                break;
+            case "@hourly":
+                fields = "0 * * * *";
+                break;
+            default:
+                fields = trimmed;
+                break;
+        }
+        
+        String[] parts = fields.split("\\s+");
+        if (parts.length != 5) {
+            throw new IllegalArgumentException("Expected 5 fields but found " + parts.length + ": " + expression);
+        }
+        return new CronExpression(trimmed, parts);
+    }
+    
+    /**
+     * First matching minute strictly after the given time
+     *
+     * @return the time in epoch milliseconds, or -1 if the expression never matches, such as on February 30
+     */
+    public long next(long afterMillis, ZoneId zone) {
+        LocalDateTime time = Instant.ofEpochMilli(afterMillis).atZone(zone).toLocalDateTime()
+            .truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        LocalDateTime limit = time.plusYears(SEARCH_YEARS);
+        
+        while (time.isBefore(limit)) {
+            if (!has(months, time.getMonthValue())) {
+                time = time.toLocalDate().withDayOfMonth(1).plusMonths(1).atStartOfDay();
+                continue;
+            }
+            if (!matchesDay(time)) {
+                time = time.toLocalDate().plusDays(1).atStartOfDay();
+                continue;
+            }
+            int hour = nextBit(hours, time.getHour());
+            if (hour < 0) {
+                time = time.toLocalDate().plusDays(1).atStartOfDay();
+                continue;
+            }
+            if (hour != time.getHour()) {
+                time = time.withHour(hour).withMinute(0);
+            }
+            int minute = nextBit(minutes, time.getMinute());
+            if (minute < 0) {
+                time = time.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+                continue;
+            }
+            time = time.withMinute(minute);
+            
+            // Times skipped by a daylight saving change are moved forward by the length of the gap
+            long millis = ZonedDateTime.of(time, zone).toInstant().toEpochMilli();
+            if (millis > afterMillis) {
+                return millis;
+            }
+            time = time.plusMinutes(1);
+        }
+        return -1;
+    }
+    
+    private boolean matchesDay(LocalDateTime time) {
+        boolean dayOfMonth = has(daysOfMonth, time.getDayOfMonth());
+        boolean dayOfWeek = has(daysOfWeek, time.getDayOfWeek().getValue() % 7);
+        if (dayOfMonthRestricted && dayOfWeekRestricted) {
+            return dayOfMonth || dayOfWeek;
+        }
+        return dayOfMonth && dayOfWeek;
+    }
+    
+    private static boolean has(long bits, int value) {
+        return (bits & (1L << value)) != 0;
+    }
+    
+    /**
+     * Lowest set bit at or above the given one, or -1 if there is none
+     */
+    private static int nextBit(long bits, int from) {
+        long remaining = bits & (-1L << from);
+        return remaining == 0 ? -1 : Long.numberOfTrailingZeros(remaining);
+    }
+    
+    private static long parseField(String field, int min, int max, String[] names) {
+        long bits = 0;
+        for (String part : field.split(",")) {
+            int step = 1;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = parseNumber(part.substring(slash + 1), 1, max, null, 0);
+                part = part.substring(0, slash);
+            }
+            
+            int start;
+            int end;
+            if ("*".equals(part)) {
+                start = min;
+                end = max;
+            } else {
+                int dash = part.indexOf('-');
+                if (dash > 0) {
+                    start = parseNumber(part.substring(0, dash), min, max, names, min);
+                    end = parseNumber(part.substring(dash + 1), min, max, names, min);
+                } else {
+                    start = parseNumber(part, min, max, names, min);
+                    end = slash >= 0 ? max : start;
+                }
+                if (start > end) {
+                    throw new IllegalArgumentException("Invalid range: " + part);
+                }
+            }
+            
+            for (int value = start; value <= end; value += step) {
+                bits |= 1L << value;
+            }
+        }
+        return bits;
+    }
+    
+    private static int parseNumber(String value, int min, int max, String[] names, int nameOffset) {
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equalsIgnoreCase(value)) {
+                    return i + nameOffset;
+                }
+            }
+        }
+        try {
+            int number = Integer.parseInt(value);
+            if (number >= min && number <= max) {
+                return number;
+            }
+        } catch (NumberFormatException ignored) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid value: " + value);
+    }
+    
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
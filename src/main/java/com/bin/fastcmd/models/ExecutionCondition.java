@@ -0,0 +1,33 @@
+package com.bin.fastcmd.models;
+
+/**
+ * When a connected block is triggered, based on whether the command of the block triggering it succeeded
+ */
+public enum ExecutionCondition {
+    ALWAYS("always"),
+    SUCCESS("success"),
+    FAILURE("failure");
+    
+    private final String name;
+    
+    ExecutionCondition(String name) {
+        this.name = name;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public boolean accepts(boolean success) {
+        return this == ALWAYS || (this == SUCCESS) == success;
+    }
+    
+    public static ExecutionCondition fromString(String name) {
+        for (ExecutionCondition condition : values()) {
+            if (condition.name.equalsIgnoreCase(name)) {
+                return condition;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,361 @@
+package com.bin.fastcmd.models;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Connected links between virtual command blocks compiled into an int-indexed graph.
+ * Each block is a node and its outgoing links are stored as one contiguous range of an edge array,
+ * so following a link needs no name lookup. Links to blocks that don't exist are kept by name only.
+ * A block may link to several blocks, each edge with its own delay.
+ * Graphs are immutable apart from plans cached on the main thread; {@link com.bin.fastcmd.managers.StorageManager}
+ * compiles a new one on its storage thread after blocks change and publishes it on the main thread.
+ */
+public class ExecutionGraph {
+    
+    private final VirtualCommandBlock[] blocks;
+    private final Map<String, Integer> indexes;
+    private final int[] edgeStart;
+    private final int[] edgeTarget;
+    private final String[] edgeName;
+    private final long[] edgeDelay;
+    private final int[] depths;
+    private final int[][] plans;
+    private final List<List<String>> cycles;
+    private boolean[] planVisited;
+    private int[] planQueue;
+    
+    private ExecutionGraph(VirtualCommandBlock[] blocks, Map<String, Integer> indexes,
+                           int[] edgeStart, int[] edgeTarget, String[] edgeName, long[] edgeDelay) {
+        this.blocks = blocks;
+        this.indexes = indexes;
+        this.edgeStart = edgeStart;
+        this.edgeTarget = edgeTarget;
+        this.edgeName = edgeName;
+        this.edgeDelay = edgeDelay;
+        this.depths = new int[blocks.length];
+        this.plans = new int[blocks.length][];
+        this.cycles = new ArrayList<>();
+    }
+    
+    /**
+     * Graph without any blocks
+     */
+    public static ExecutionGraph empty() {
+        return compile(new VirtualCommandBlock[0], Collections.emptyList());
+    }
+    
+    /**
+     * Compile the connected links of the given blocks
+     */
+    public static ExecutionGraph compile(Collection<VirtualCommandBlock> commandBlocks) {
+        VirtualCommandBlock[] blocks = commandBlocks.toArray(new VirtualCommandBlock[0]);
+        List<List<ConnectedLink>> connections = new ArrayList<>(blocks.length);
+        for (VirtualCommandBlock block : blocks) {
+            connections.add(block.getConnections());
+        }
+        return compile(blocks, connections);
+    }
+    
+    /**
+     * Compile the given links of the given blocks. Only the arrays passed in are read, so this can run
+     * on another thread while the blocks change; the links of each block are taken beforehand.
+     *
+     * @param connections links of each block, in the same order as the blocks
+     */
+    public static ExecutionGraph compile(VirtualCommandBlock[] blocks, List<List<ConnectedLink>> connections) {
+        Map<String, Integer> indexes = new HashMap<>(blocks.length * 2);
+        for (int i = 0; i < blocks.length; i++) {
+            indexes.put(blocks[i].getName(), i);
+        }
+        
+        int[] edgeStart = new int[blocks.length + 1];
+        List<ConnectedLink> links = new ArrayList<>();
+        for (int i = 0; i < blocks.length; i++) {
+            edgeStart[i] = links.size();
+            links.addAll(connections.get(i));
+        }
+        edgeStart[blocks.length] = links.size();
+        
+        int[] edgeTarget = new int[links.size()];
+        String[] edgeName = new String[links.size()];
+        long[] edgeDelay = new long[links.size()];
+        for (int edge = 0; edge < edgeName.length; edge++) {
+            ConnectedLink link = links.get(edge);
+            Integer target = indexes.get(link.getName());
+            edgeTarget[edge] = target != null ? target : -1;
+            edgeName[edge] = link.getName();
+            edgeDelay[edge] = link.getDelay();
+        }
+        
+        ExecutionGraph graph = new ExecutionGraph(blocks, indexes, edgeStart, edgeTarget, edgeName, edgeDelay);
+        graph.analyze();
+        return graph;
+    }
+    
+    /**
+     * Point the blocks at their nodes, so {@link #indexOf(VirtualCommandBlock)} needs no lookup.
+     * Called on the main thread when the graph is published.
+     */
+    public void bind() {
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i].setGraphIndex(i);
+        }
+    }
+    
+    /**
+     * Depth-first walk computing the depth of every node and collecting cycles
+     */
+    private void analyze() {
+        int size = blocks.length;
+        int[] state = new int[size];
+        int[] stack = new int[size];
+        int[] stackPosition = new int[size];
+        int[] edgeCursor = new int[size];
+        
+        for (int root = 0; root < size; root++) {
+            if (state[root] != 0) {
+                continue;
+            }
+            
+            int stackSize = 0;
+            state[root] = 1;
+            stackPosition[root] = stackSize;
+            edgeCursor[root] = edgeStart[root];
+            stack[stackSize++] = root;
+            
+            while (stackSize > 0) {
+                int node = stack[stackSize - 1];
+                if (edgeCursor[node] < edgeStart[node + 1]) {
+                    int target = edgeTarget[edgeCursor[node]++];
+                    if (target < 0) {
+                        continue;
+                    }
+                    if (state[target] == 0) {
+                        state[target] = 1;
+                        stackPosition[target] = stackSize;
+                        edgeCursor[target] = edgeStart[target];
+                        stack[stackSize++] = target;
+                    } else if (state[target] == 1) {
+                        // Link back into the current path
+                        List<String> cycle = new ArrayList<>();
+                        for (int i = stackPosition[target]; i < stackSize; i++) {
+                            cycle.add(blocks[stack[i]].getName());
+                        }
+                        cycle.add(blocks[target].getName());
+                        cycles.add(cycle);
+                    }
+                    continue;
+                }
+                
+                // All links followed, links back into the current path don't add depth
+                int depth = 0;
+                for (int edge = edgeStart[node]; edge < edgeStart[node + 1]; edge++) {
+                    int target = edgeTarget[edge];
+                    if (target >= 0 && state[target] == 2) {
+                        depth = Math.max(depth, depths[target]);
+                    }
+                }
+                depths[node] = depth + 1;
+                state[node] = 2;
+                stackSize--;
+            }
+        }
+    }
+    
+    public int size() {
+        return blocks.length;
+    }
+    
+    /**
+     * Node of the given block, or -1 if it is not part of this graph
+     */
+    public int indexOf(VirtualCommandBlock commandBlock) {
+        int index = commandBlock.getGraphIndex();
+        return index >= 0 && index < blocks.length && blocks[index] == commandBlock ? index : -1;
+    }
+    
+    /**
+     * Node of the block with the given name, or -1 if there is no such block
+     */
+    public int indexOf(String name) {
+        Integer index = indexes.get(name);
+        return index != null ? index : -1;
+    }
+    
+    public VirtualCommandBlock getBlock(int node) {
+        return blocks[node];
+    }
+    
+    /**
+     * First edge of the node; its edges run up to {@link #getEdgeEnd(int)}
+     */
+    public int getEdgeStart(int node) {
+        return edgeStart[node];
+    }
+    
+    public int getEdgeEnd(int node) {
+        return edgeStart[node + 1];
+    }
+    
+    /**
+     * Node the edge leads to, or -1 if the connected block does not exist
+     */
+    public int getEdgeTarget(int edge) {
+        return edgeTarget[edge];
+    }
+    
+    /**
+     * Name of the block the edge leads to, also when it does not exist
+     */
+    public String getEdgeName(int edge) {
+        return edgeName[edge];
+    }
+    
+    /**
+     * Ticks waited before the block the edge leads to is started
+     */
+    public long getEdgeDelay(int edge) {
+        return edgeDelay[edge];
+    }
+    
+    /**
+     * Number of blocks on the longest path starting at the node, not counting links back into the path
+     */
+    public int getDepth(int node) {
+        return depths[node];
+    }
+    
+    /**
+     * Nodes reached from the node, in the order they are triggered, each listed once.
+     * Plans are built the first time they are needed and kept; only call this on the main thread.
+     */
+    public int[] getPlan(int node) {
+        int[] plan = plans[node];
+        if (plan != null) {
+            return plan;
+        }
+        
+        // Scratch arrays are shared by all plans, only the visited entries are cleared again
+        if (planQueue == null) {
+            planVisited = new boolean[blocks.length];
+            planQueue = new int[blocks.length];
+        }
+        boolean[] visited = planVisited;
+        int[] queue = planQueue;
+        int head = 0;
+        int tail = 0;
+        visited[node] = true;
+        queue[tail++] = node;
+        while (head < tail) {
+            int current = queue[head++];
+            for (int edge = edgeStart[current]; edge < edgeStart[current + 1]; edge++) {
+                int target = edgeTarget[edge];
+                if (target >= 0 && !visited[target]) {
+                    visited[target] = true;
+                    queue[tail++] = target;
+                }
+            }
+        }
+        
+        plan = new int[tail];
+        System.arraycopy(queue, 0, plan, 0, tail);
+        for (int i = 0; i < tail; i++) {
+            visited[queue[i]] = false;
+        }
+        plans[node] = plan;
+        return plan;
+    }
+    
+    /**
+     * Cycles found when the graph was compiled, each as the names along it ending with its first name
+     */
+    public List<List<String>> getCycles() {
+        return Collections.unmodifiableList(cycles);
+    }
+    
+    /**
+     * Find a cycle through at least one of the named blocks, following the links each block would have
+     * after a change. All named blocks are checked in one walk, so blocks changed together are checked
+     * against their new links rather than their old ones.
+     *
+     * @param links links of the block with the given name after the change, null if there is no such block
+     * @param follow which links to follow, e.g. only those running the connected block in the same tick
+     * @return the names along the cycle starting and ending with one of the named blocks, or null if there is none
+     */
+    public static List<String> findCycle(Collection<String> names, Function<String, List<ConnectedLink>> links,
+                                         Predicate<ConnectedLink> follow) {
+        Set<String> changed = new HashSet<>(names);
+        
+        // Depth-first over the links the blocks would have; true while a name is on the current path
+        Map<String, Boolean> onPath = new HashMap<>();
+        List<String> path = new ArrayList<>();
+        Deque<Iterator<String>> cursors = new ArrayDeque<>();
+        for (String root : changed) {
+            Iterator<String> rootSuccessors = successors(root, links, follow);
+            if (onPath.containsKey(root) || rootSuccessors == null) {
+                continue;
+            }
+            onPath.put(root, true);
+            path.add(root);
+            cursors.push(rootSuccessors);
+            
+            while (!cursors.isEmpty()) {
+                Iterator<String> cursor = cursors.peek();
+                if (!cursor.hasNext()) {
+                    onPath.put(path.remove(path.size() - 1), false);
+                    cursors.pop();
+                    continue;
+                }
+                
+                String target = cursor.next();
+                Boolean visiting = onPath.get(target);
+                if (visiting == null) {
+                    Iterator<String> next = successors(target, links, follow);
+                    if (next != null) {
+                        onPath.put(target, true);
+                        path.add(target);
+                        cursors.push(next);
+                    }
+                } else if (visiting) {
+                    // Cycles between unchanged blocks were there before, only new ones are reported
+                    List<String> cycle = path.subList(path.indexOf(target), path.size());
+                    for (int i = 0; i < cycle.size(); i++) {
+                        if (changed.contains(cycle.get(i))) {
+                            List<String> result = new ArrayList<>(cycle.subList(i, cycle.size()));
+                            result.addAll(cycle.subList(0, i + 1));
+                            return result;
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+    
+    private static Iterator<String> successors(String name, Function<String, List<ConnectedLink>> links,
+                                               Predicate<ConnectedLink> follow) {
+        List<ConnectedLink> connections = links.apply(name);
+        if (connections == null) {
+            return null;
+        }
+        List<String> connected = new ArrayList<>();
+        for (ConnectedLink link : connections) {
+            if (follow.test(link)) {
+                connected.add(link.getName());
+            }
+        }
+        return connected.iterator();
+    }
+}
@@ -0,0 +1,30 @@
+package com.bin.fastcmd.models;
+
+/**
+ * Execution state of a virtual command block.
+ * A block goes from IDLE or STOPPED to SCHEDULED when it is started, to RUNNING while its command executes,
+ * and back to SCHEDULED if it repeats, to IDLE once it is done or to STOPPED when it is stopped.
+ */
+public enum ExecutionState {
+    IDLE("idle"),
+    SCHEDULED("scheduled"),
+    RUNNING("running"),
+    STOPPED("stopped");
+    
+    private final String name;
+    
+    ExecutionState(String name) {
+        this.name = name;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Whether the block counts as running: waiting for its next run or executing it
+     */
+    public boolean isActive() {
+        return this == SCHEDULED || this == RUNNING;
+    }
+}
@@ -1,10 +1,19 @@
 package com.bin.fastcmd.models;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * Represents a virtual command block with all its properties
+ * Represents a virtual command block with all its properties.
+ * The execution state may be read from any thread; it only changes through atomic transitions.
  */
 public class VirtualCommandBlock {
     
@@ -14,8 +23,22 @@ public class VirtualCommandBlock {
     private long delay;
     private long disableTime;
     private String connectedBlock;
-    private boolean isRunning;
-    private long startTime;
+    private List<ConnectedLink> connections;
+    private long spread;
+    private String namespace;
+    private volatile Set<String> tags = Collections.emptySet();
+    private long phase = -1;
+    private BlockPriority priority = BlockPriority.NORMAL;
+    private ExecutionCondition condition = ExecutionCondition.ALWAYS;
+    private ClockMode clockMode;
+    private long disableDeadline = -1;
+    private String cron;
+    private CronExpression cronExpression;
+    private long cronLastFire;
+    private final AtomicReference<ExecutionState> state = new AtomicReference<>(ExecutionState.IDLE);
+    private volatile long startTime;
+    private CompiledCommand compiledCommand;
+    private int graphIndex = -1;
     
     public VirtualCommandBlock(String name, String command, CommandBlockType type, long delay, long disableTime, String connectedBlock) {
         this.name = name;
@@ -24,7 +47,6 @@ public class VirtualCommandBlock {
         this.delay = delay;
         this.disableTime = disableTime;
         this.connectedBlock = connectedBlock;
-        this.isRunning = false;
         this.startTime = 0;
     }
     
@@ -43,6 +65,29 @@ public class VirtualCommandBlock {
     
     public void setCommand(String command) {
         this.command = command;
+        this.compiledCommand = null;
+    }
+    
+    /**
+     * Cached form of the command for the dispatcher, or null if it has to be compiled again
+     */
+    public CompiledCommand getCompiledCommand() {
+        return compiledCommand;
+    }
+    
+    public void setCompiledCommand(CompiledCommand compiledCommand) {
+        this.compiledCommand = compiledCommand;
+    }
+    
+    /**
+     * Node of this block in the execution graph it was last compiled into
+     */
+    public int getGraphIndex() {
+        return graphIndex;
+    }
+    
+    public void setGraphIndex(int graphIndex) {
+        this.graphIndex = graphIndex;
     }
     
     public CommandBlockType getType() {
@@ -75,19 +120,234 @@ public class VirtualCommandBlock {
     
     public void setConnectedBlock(String connectedBlock) {
         this.connectedBlock = connectedBlock;
+        this.connections = null;
+    }
+    
+    /**
+     * Blocks this block triggers, parsed from the connected block value and cached until it changes.
+     * A value saved by older versions that does not parse is taken as a single block name.
+     */
+    public List<ConnectedLink> getConnections() {
+        if (connections == null) {
+            if (connectedBlock == null || connectedBlock.isEmpty()) {
+                connections = Collections.emptyList();
+            } else {
+                try {
+                    connections = ConnectedLink.parseAll(connectedBlock);
+                } catch (IllegalArgumentException e) {
+                    connections = Collections.singletonList(new ConnectedLink(connectedBlock, 0));
+                }
+            }
+        }
+        return connections;
+    }
+    
+    /**
+     * Number of ticks the start of the connected blocks is spread over, or 0 to start them all together
+     */
+    public long getSpread() {
+        return spread;
+    }
+    
+    public void setSpread(long spread) {
+        this.spread = spread;
+    }
+    
+    /**
+     * Storage namespace of this block, or null when it is kept in the default storage
+     */
+    public String getNamespace() {
+        return namespace;
+    }
+    
+    public void setNamespace(String namespace) {
+        this.namespace = namespace;
+    }
+    
+    /**
+     * Tags of this block in lower case, used to select blocks for bulk operations.
+     * The set is replaced rather than changed, so it can be read from any thread.
+     */
+    public Set<String> getTags() {
+        return tags;
+    }
+    
+    public void setTags(Collection<String> tags) {
+        Set<String> lowerCase = new LinkedHashSet<>();
+        for (String tag : tags) {
+            lowerCase.add(tag.toLowerCase(Locale.ROOT));
+        }
+        this.tags = Collections.unmodifiableSet(lowerCase);
+    }
+    
+    /**
+     * Fixed phase of a repeating block within its period, or -1 to have one allocated when it starts
+     */
+    public long getPhase() {
+        return phase;
+    }
+    
+    public void setPhase(long phase) {
+        this.phase = phase;
+    }
+    
+    public BlockPriority getPriority() {
+        return priority;
+    }
+    
+    public void setPriority(BlockPriority priority) {
+        this.priority = priority;
+    }
+    
+    /**
+     * Whether this block is triggered through a connected link, given the result of the block triggering it.
+     * Blocks started by hand or by their cron expression always run.
+     */
+    public ExecutionCondition getCondition() {
+        return condition;
+    }
+    
+    public void setCondition(ExecutionCondition condition) {
+        this.condition = condition;
+    }
+    
+    /**
+     * Clock measuring the disable time of this block, or null to use the configured default
+     */
+    public ClockMode getClockMode() {
+        return clockMode;
+    }
+    
+    public void setClockMode(ClockMode clockMode) {
+        this.clockMode = clockMode;
+    }
+    
+    /**
+     * Time of the block's clock at which it is disabled, or -1 if it runs until stopped
+     */
+    public long getDisableDeadline() {
+        return disableDeadline;
+    }
+    
+    public void setDisableDeadline(long disableDeadline) {
+        this.disableDeadline = disableDeadline;
+    }
+    
+    /**
+     * Cron expression starting this block at calendar times, or null if it is only started by hand
+     */
+    public String getCron() {
+        return cron;
+    }
+    
+    public void setCron(String cron) {
+        this.cron = cron;
+        this.cronExpression = null;
+    }
+    
+    /**
+     * Parsed form of the cron expression, cached until it changes
+     *
+     * @throws IllegalArgumentException if the expression is not valid
+     */
+    public CronExpression getCronExpression() {
+        if (cronExpression == null && cron != null) {
+            cronExpression = CronExpression.parse(cron);
+        }
+        return cronExpression;
+    }
+    
+    /**
+     * Epoch milliseconds of the last time the cron expression started this block, or 0 if it never did
+     */
+    public long getCronLastFire() {
+        return cronLastFire;
+    }
+    
+    public void setCronLastFire(long cronLastFire) {
+        this.cronLastFire = cronLastFire;
+    }
+    
+    /**
+     * Namespaces are used as file names, so only letters, digits, dots, dashes and underscores are allowed
+     */
+    public static boolean isValidNamespace(String namespace) {
+        return namespace != null && namespace.matches("[A-Za-z0-9_.-]+") && !namespace.startsWith(".");
+    }
+    
+    /**
+     * Tags are listed comma separated, so they are limited to letters, digits, dots, dashes and underscores
+     */
+    public static boolean isValidTag(String tag) {
+        return tag != null && tag.matches("[A-Za-z0-9_.-]+");
+    }
+    
+    public ExecutionState getState() {
+        return state.get();
     }
     
     public boolean isRunning() {
-        return isRunning;
+        return state.get().isActive();
+    }
+    
+    /**
+     * Move from the expected state to the next one
+     *
+     * @return false if the block is no longer in the expected state, so another transition happened first
+     */
+    public boolean transition(ExecutionState expected, ExecutionState next) {
+        if (!state.compareAndSet(expected, next)) {
+            return false;
+        }
+        if (!next.isActive()) {
+            startTime = 0;
+        }
+        return true;
+    }
+    
+    /**
+     * Mark as scheduled to run, starting now
+     *
+     * @return false if the block is already scheduled or running
+     */
+    public boolean markScheduled() {
+        return resumeRunning(0);
     }
     
-    public void setRunning(boolean running) {
-        this.isRunning = running;
-        if (running) {
-            this.startTime = System.currentTimeMillis();
-        } else {
-            this.startTime = 0;
+    /**
+     * Mark as scheduled as if it had been started the given number of milliseconds ago.
+     * Like {@link #transition(ExecutionState, ExecutionState)}, only an idle or stopped block is moved.
+     *
+     * @return false if the block is already scheduled or running
+     */
+    public boolean resumeRunning(long elapsedMillis) {
+        ExecutionState current = state.get();
+        while (!current.isActive()) {
+            if (state.compareAndSet(current, ExecutionState.SCHEDULED)) {
+                this.startTime = System.currentTimeMillis() - elapsedMillis;
+                return true;
+            }
+            // Another thread changed the state in between, try again from the new one
+            current = state.get();
+        }
+        return false;
+    }
+    
+    /**
+     * Mark as stopped from whatever state the block is in
+     *
+     * @return false if it already was stopped
+     */
+    public boolean markStopped() {
+        ExecutionState current = state.get();
+        while (current != ExecutionState.STOPPED) {
+            if (state.compareAndSet(current, ExecutionState.STOPPED)) {
+                this.startTime = 0;
+                return true;
+            }
+            current = state.get();
         }
+        return false;
     }
     
     public long getStartTime() {
@@ -106,6 +366,33 @@ public class VirtualCommandBlock {
         if (connectedBlock != null && !connectedBlock.isEmpty()) {
             map.put("connected", connectedBlock);
         }
+        if (namespace != null) {
+            map.put("namespace", namespace);
+        }
+        if (!tags.isEmpty()) {
+            map.put("tags", new ArrayList<>(tags));
+        }
+        if (spread > 0) {
+            map.put("spread", spread);
+        }
+        if (phase >= 0) {
+            map.put("phase", phase);
+        }
+        if (priority != BlockPriority.NORMAL) {
+            map.put("priority", priority.name());
+        }
+        if (condition != ExecutionCondition.ALWAYS) {
+            map.put("if", condition.getName());
+        }
+        if (clockMode != null) {
+            map.put("clock", clockMode.getName());
+        }
+        if (cron != null) {
+            map.put("cron", cron);
+        }
+        if (cronLastFire > 0) {
+            map.put("cron-last-fire", cronLastFire);
+        }
         return map;
     }
     
@@ -119,7 +406,33 @@ public class VirtualCommandBlock {
         long disableTime = getLongFromMap(map, "disable-time", 0);
         String connectedBlock = (String) map.get("connected");
         
-        return new VirtualCommandBlock(name, command, type, delay, disableTime, connectedBlock);
+        VirtualCommandBlock block = new VirtualCommandBlock(name, command, type, delay, disableTime, connectedBlock);
+        block.setNamespace((String) map.get("namespace"));
+        if (map.get("tags") instanceof List) {
+            List<String> tags = new ArrayList<>();
+            for (Object tag : (List<?>) map.get("tags")) {
+                tags.add(String.valueOf(tag));
+            }
+            block.setTags(tags);
+        }
+        block.setSpread(getLongFromMap(map, "spread", 0));
+        block.setPhase(getLongFromMap(map, "phase", -1));
+        if (map.get("priority") instanceof String) {
+            BlockPriority priority = BlockPriority.fromString((String) map.get("priority"));
+            block.setPriority(priority != null ? priority : BlockPriority.NORMAL);
+        }
+        if (map.get("if") instanceof String) {
+            ExecutionCondition condition = ExecutionCondition.fromString((String) map.get("if"));
+            block.setCondition(condition != null ? condition : ExecutionCondition.ALWAYS);
+        }
+        if (map.get("clock") instanceof String) {
+            block.setClockMode(ClockMode.fromString((String) map.get("clock")));
+        }
+        if (map.get("cron") instanceof String) {
+            block.setCron((String) map.get("cron"));
+        }
+        block.setCronLastFire(getLongFromMap(map, "cron-last-fire", 0));
+        return block;
     }
     
     private static long getLongFromMap(Map<String, Object> map, String key, long defaultValue) {
@@ -131,12 +444,11 @@ public class VirtualCommandBlock {
     }
     
     /**
-     * Check if the command block should be disabled based on disable time
+     * Check if the command block should be disabled based on its disable deadline
+     *
+     * @param now current time of the block's clock
      */
-    public boolean shouldBeDisabled() {
-        if (disableTime <= 0 || !isRunning) {
-            return false;
-        }
-        return System.currentTimeMillis() - startTime >= disableTime;
+    public boolean shouldBeDisabled(long now) {
+        return disableDeadline >= 0 && isRunning() && now >= disableDeadline;
     }
 }
@@ -0,0 +1,54 @@
+package com.bin.fastcmd.monitoring;
+
+/**
+ * Run counts and run times of one command block since the server started,
+ * registered as com.bin.fastcmd:type=Block,name=&lt;block&gt; once the block has run.
+ * Percentiles are accurate to a factor of two.
+ */
+public interface BlockMXBean {
+    
+    String getName();
+    
+    String getState();
+    
+    long getFires();
+    
+    long getSuccesses();
+    
+    long getFailures();
+    
+    long getDeferrals();
+    
+    long getDeferredTicks();
+    
+    double getTotalMillis();
+    
+    double getAverageMicros();
+    
+    double getP50Micros();
+    
+    double getP90Micros();
+    
+    double getP99Micros();
+    
+    double getMaxMicros();
+    
+    /**
+     * Number of runs per histogram bucket; bucket i counts runs faster than 2^i nanoseconds
+     */
+    long[] getHistogram();
+    
+    /**
+     * Start the block like /fastcmd run
+     *
+     * @return false if the block no longer exists or is already running
+     */
+    boolean run();
+    
+    /**
+     * Stop the block like /fastcmd stop
+     *
+     * @return false if the block no longer exists or is not running
+     */
+    boolean stop();
+}
@@ -0,0 +1,104 @@
+package com.bin.fastcmd.monitoring;
+
+import com.bin.fastcmd.FastCMD;
+import com.bin.fastcmd.models.VirtualCommandBlock;
+import com.bin.fastcmd.utils.BlockStats;
+
+/**
+ * MBean of one command block, reading the block's stats recorded by the task manager
+ */
+public class BlockMonitor implements BlockMXBean {
+    
+    private final FastCMD plugin;
+    private final SchedulerMonitor scheduler;
+    private final String name;
+    private final BlockStats stats;
+    
+    public BlockMonitor(FastCMD plugin, SchedulerMonitor scheduler, String name, BlockStats stats) {
+        this.plugin = plugin;
+        this.scheduler = scheduler;
+        this.name = name;
+        this.stats = stats;
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public String getState() {
+        VirtualCommandBlock commandBlock = plugin.getStorageManager().getCommandBlock(name);
+        return commandBlock != null ? commandBlock.getState().getName() : "deleted";
+    }
+    
+    @Override
+    public long getFires() {
+        return stats.getFires();
+    }
+    
+    @Override
+    public long getSuccesses() {
+        return stats.getSuccesses();
+    }
+    
+    @Override
+    public long getFailures() {
+        return stats.getFailures();
+    }
+    
+    @Override
+    public long getDeferrals() {
+        return stats.getDeferrals();
+    }
+    
+    @Override
+    public long getDeferredTicks() {
+        return stats.getDeferredTicks();
+    }
+    
+    @Override
+    public double getTotalMillis() {
+        return stats.getTotalNanos() / 1_000_000.0;
+    }
+    
+    @Override
+    public double getAverageMicros() {
+        return stats.getAverageNanos() / 1_000.0;
+    }
+    
+    @Override
+    public double getP50Micros() {
+        return stats.getPercentileNanos(0.5) / 1_000.0;
+    }
+    
+    @Override
+    public double getP90Micros() {
+        return stats.getPercentileNanos(0.9) / 1_000.0;
+    }
+    
+    @Override
+    public double getP99Micros() {
+        return stats.getPercentileNanos(0.99) / 1_000.0;
+    }
+    
+    @Override
+    public double getMaxMicros() {
+        return stats.getMaxNanos() / 1_000.0;
+    }
+    
+    @Override
+    public long[] getHistogram() {
+        return stats.getHistogram();
+    }
+    
+    @Override
+    public boolean run() {
+        return scheduler.runBlock(name);
+    }
+    
+    @Override
+    public boolean stop() {
+        return scheduler.stopBlock(name);
+    }
+}
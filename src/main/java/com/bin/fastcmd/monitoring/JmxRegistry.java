@@ -0,0 +1,133 @@
+package com.bin.fastcmd.monitoring;
+
+import com.bin.fastcmd.FastCMD;
+import com.bin.fastcmd.utils.BlockStats;
+import org.bukkit.scheduler.BukkitTask;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Registers the FastCMD MBeans with the platform MBean server.
+ * A block gets its MBean once it has run; block MBeans are added and removed by an async task,
+ * so the main thread never touches the MBean server while blocks run.
+ */
+public class JmxRegistry {
+    
+    private static final String DOMAIN = "com.bin.fastcmd";
+    private static final long SYNC_INTERVAL_TICKS = 100;
+    
+    private final FastCMD plugin;
+    private final MBeanServer server;
+    private final SchedulerMonitor scheduler;
+    private final Map<String, Registration> blocks;
+    private ObjectName schedulerName;
+    private BukkitTask syncTask;
+    
+    public JmxRegistry(FastCMD plugin) {
+        this.plugin = plugin;
+        this.server = ManagementFactory.getPlatformMBeanServer();
+        this.scheduler = new SchedulerMonitor(plugin);
+        this.blocks = new HashMap<>();
+    }
+    
+    /**
+     * Register the scheduler MBean and start keeping block MBeans in sync with the blocks that have run
+     */
+    public synchronized void register() {
+        try {
+            schedulerName = new ObjectName(DOMAIN + ":type=Scheduler");
+            registerReplacing(scheduler, schedulerName);
+        } catch (JMException e) {
+            plugin.getLogger().warning("Failed to register JMX scheduler MBean: " + e.getMessage());
+            return;
+        }
+        syncTask = plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, this::syncBlocks,
+            SYNC_INTERVAL_TICKS, SYNC_INTERVAL_TICKS);
+    }
+    
+    /**
+     * Register MBeans of blocks that have run since the last sync, and unregister those of deleted blocks
+     */
+    private synchronized void syncBlocks() {
+        if (syncTask == null) {
+            return;
+        }
+        
+        Map<String, BlockStats> allStats = plugin.getTaskManager().getAllStats();
+        Iterator<Map.Entry<String, Registration>> iterator = blocks.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Registration> entry = iterator.next();
+            if (allStats.get(entry.getKey()) != entry.getValue().stats) {
+                unregister(entry.getValue().objectName);
+                iterator.remove();
+            }
+        }
+        
+        for (Map.Entry<String, BlockStats> entry : allStats.entrySet()) {
+            String name = entry.getKey();
+            if (blocks.containsKey(name) || !plugin.getStorageManager().hasCommandBlock(name)) {
+                continue;
+            }
+            try {
+                ObjectName objectName = new ObjectName(DOMAIN + ":type=Block,name=" + ObjectName.quote(name));
+                registerReplacing(new BlockMonitor(plugin, scheduler, name, entry.getValue()), objectName);
+                blocks.put(name, new Registration(objectName, entry.getValue()));
+            } catch (JMException e) {
+                plugin.getLogger().warning("Failed to register JMX MBean of command block '" + name + "': " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Stop syncing and unregister every MBean, before the plugin is disabled
+     */
+    public synchronized void unregisterAll() {
+        if (syncTask != null) {
+            syncTask.cancel();
+            syncTask = null;
+        }
+        for (Registration registration : blocks.values()) {
+            unregister(registration.objectName);
+        }
+        blocks.clear();
+        if (schedulerName != null) {
+            unregister(schedulerName);
+            schedulerName = null;
+        }
+    }
+    
+    private void registerReplacing(Object mbean, ObjectName objectName) throws JMException {
+        // A reload may have left the MBean of the previous plugin instance behind
+        if (server.isRegistered(objectName)) {
+            server.unregisterMBean(objectName);
+        }
+        server.registerMBean(mbean, objectName);
+    }
+    
+    private void unregister(ObjectName objectName) {
+        try {
+            server.unregisterMBean(objectName);
+        } catch (InstanceNotFoundException e) {
+            // Already gone
+        } catch (JMException e) {
+            plugin.getLogger().warning("Failed to unregister JMX MBean " + objectName + ": " + e.getMessage());
+        }
+    }
+    
+    private static final class Registration {
+        private final ObjectName objectName;
+        private final BlockStats stats;
+        
+        private Registration(ObjectName objectName, BlockStats stats) {
+            this.objectName = objectName;
+            this.stats = stats;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.bin.fastcmd.monitoring;
+
+import com.bin.fastcmd.FastCMD;
+import com.bin.fastcmd.managers.StorageManager;
+import com.bin.fastcmd.models.CommandBlockType;
+import com.bin.fastcmd.models.VirtualCommandBlock;
+import com.bin.fastcmd.utils.BlockStats;
+import com.bin.fastcmd.utils.TaskManager;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves FastCMD metrics in the Prometheus text format on the loopback interface.
+ * Each scrape takes a snapshot of the lock-free counters on the HTTP thread and renders it there,
+ * so scraping never runs on or waits for the main thread.
+ */
+public class PrometheusExporter {
+    
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    
+    /**
+     * Histogram buckets exported, every other power of two from about 1 microsecond to 4.5 minutes
+     */
+    private static final int FIRST_BUCKET = 10;
+    private static final int LAST_BUCKET = 38;
+    private static final int BUCKET_STEP = 2;
+    
+    private final FastCMD plugin;
+    private HttpServer server;
+    private ExecutorService executor;
+    
+    public PrometheusExporter(FastCMD plugin) {
+        this.plugin = plugin;
+    }
+    
+    /**
+     * Start serving /metrics on the configured loopback port
+     */
+    public void start() {
+        int port = plugin.getConfigManager().getPrometheusPort();
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to start Prometheus exporter on port " + port + ": " + e.getMessage());
+            return;
+        }
+        
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "FastCMD-Metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/metrics", this::handle);
+        server.start();
+        plugin.getLogger().info("Serving Prometheus metrics at http://" + server.getAddress().getHostString() + ":" + port + "/metrics");
+    }
+    
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            
+            byte[] body = render(snapshot()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    /**
+     * Copy every value to export, reading only volatile fields, atomic counters and concurrent maps
+     */
+    private Snapshot snapshot() {
+        StorageManager storage = plugin.getStorageManager();
+        TaskManager taskManager = plugin.getTaskManager();
+        Snapshot snapshot = new Snapshot();
+        
+        // One copy of the registry serves both the block count and the running blocks, so they agree
+        Collection<VirtualCommandBlock> commandBlocks = storage.getAllCommandBlocks().values();
+        snapshot.blocks = commandBlocks.size();
+        snapshot.scheduled = taskManager.getRunningCount();
+        snapshot.deferred = taskManager.getDeferredCount();
+        snapshot.dispatchedLastTick = taskManager.getDispatchedLastTick();
+        snapshot.storageLoadNanos = storage.getLoadNanos();
+        snapshot.lastSaveNanos = storage.getLastSaveNanos();
+        snapshot.lastSaveBytes = storage.getLastSaveBytes();
+        snapshot.saveCount = storage.getSaveCount();
+        snapshot.saveNanos = storage.getTotalSaveNanos();
+        snapshot.languageLoadNanos = plugin.getLocalizationManager().getLoadNanos();
+        
+        snapshot.runningByType = new long[CommandBlockType.values().length];
+        for (VirtualCommandBlock commandBlock : commandBlocks) {
+            if (commandBlock.isRunning()) {
+                snapshot.runningByType[commandBlock.getType().ordinal()]++;
+            }
+        }
+        
+        snapshot.blockSeries = new TreeMap<>();
+        snapshot.tagSeries = new TreeMap<>();
+        for (Map.Entry<String, BlockStats> entry : taskManager.getAllStats().entrySet()) {
+            VirtualCommandBlock commandBlock = storage.getCommandBlock(entry.getKey());
+            if (commandBlock == null) {
+                continue;
+            }
+            Series series = new Series(entry.getValue());
+            snapshot.blockSeries.put(entry.getKey(), series);
+            for (String tag : commandBlock.getTags()) {
+                snapshot.tagSeries.computeIfAbsent(tag, key -> new Series()).add(series);
+            }
+        }
+        return snapshot;
+    }
+    
+    private String render(Snapshot snapshot) {
+        StringBuilder out = new StringBuilder(1024 + snapshot.blockSeries.size() * 2048);
+        
+        gauge(out, "fastcmd_blocks", "Virtual command blocks", snapshot.blocks);
+        header(out, "fastcmd_running_blocks", "gauge", "Command blocks currently scheduled or running, by type");
+        for (CommandBlockType type : CommandBlockType.values()) {
+            sample(out, "fastcmd_running_blocks", "type", type.name().toLowerCase(Locale.ROOT), Long.toString(snapshot.runningByType[type.ordinal()]));
+        }
+        gauge(out, "fastcmd_scheduled_tasks", "Entries in the scheduler's task registry", snapshot.scheduled);
+        gauge(out, "fastcmd_deferred_blocks", "Due command blocks waiting for dispatch budget at the end of the last tick", snapshot.deferred);
+        gauge(out, "fastcmd_dispatched_last_tick", "Command blocks dispatched in the last tick", snapshot.dispatchedLastTick);
+        
+        gaugeSeconds(out, "fastcmd_storage_load_seconds", "Time taken to load command blocks on startup", snapshot.storageLoadNanos);
+        gaugeSeconds(out, "fastcmd_storage_last_save_seconds", "Duration of the last write to the storage backend", snapshot.lastSaveNanos);
+        if (snapshot.lastSaveBytes >= 0) {
+            gauge(out, "fastcmd_storage_last_save_bytes", "Size of the storage on disk after the last write", snapshot.lastSaveBytes);
+        }
+        header(out, "fastcmd_storage_save_seconds", "summary", "Writes to the storage backend");
+        sample(out, "fastcmd_storage_save_seconds_sum", null, null, seconds(snapshot.saveNanos));
+        sample(out, "fastcmd_storage_save_seconds_count", null, null, Long.toString(snapshot.saveCount));
+        gaugeSeconds(out, "fastcmd_language_load_seconds", "Duration of the last language file load", snapshot.languageLoadNanos);
+        
+        series(out, "fastcmd_block", "block", snapshot.blockSeries);
+        series(out, "fastcmd_tag", "tag", snapshot.tagSeries);
+        return out.toString();
+    }
+    
+    private void series(StringBuilder out, String prefix, String label, Map<String, Series> seriesByLabel) {
+        header(out, prefix + "_runs_total", "counter", "Command runs, by " + label);
+        for (Map.Entry<String, Series> entry : seriesByLabel.entrySet()) {
+            sample(out, prefix + "_runs_total", label, entry.getKey(), Long.toString(entry.getValue().fires));
+        }
+        header(out, prefix + "_failures_total", "counter", "Command runs that failed, by " + label);
+        for (Map.Entry<String, Series> entry : seriesByLabel.entrySet()) {
+            sample(out, prefix + "_failures_total", label, entry.getKey(), Long.toString(entry.getValue().failures));
+        }
+        header(out, prefix + "_deferrals_total", "counter", "Runs that waited for dispatch budget, by " + label);
+        for (Map.Entry<String, Series> entry : seriesByLabel.entrySet()) {
+            sample(out, prefix + "_deferrals_total", label, entry.getKey(), Long.toString(entry.getValue().deferrals));
+        }
+        
+        String histogram = prefix + "_run_seconds";
+        header(out, histogram, "histogram", "Time taken to run the command, by " + label);
+        for (Map.Entry<String, Series> entry : seriesByLabel.entrySet()) {
+            String value = escape(entry.getKey());
+            long[] buckets = entry.getValue().buckets;
+            long cumulative = 0;
+            int next = 0;
+            for (int bucket = FIRST_BUCKET; bucket <= LAST_BUCKET; bucket += BUCKET_STEP) {
+                while (next <= bucket) {
+                    cumulative += buckets[next++];
+                }
+                out.append(histogram).append("_bucket{").append(label).append("=\"").append(value)
+                    .append("\",le=\"").append(seconds(1L << bucket)).append("\"} ").append(cumulative).append('\n');
+            }
+            out.append(histogram).append("_bucket{").append(label).append("=\"").append(value)
+                .append("\",le=\"+Inf\"} ").append(entry.getValue().count).append('\n');
+            sample(out, histogram + "_sum", label, entry.getKey(), seconds(entry.getValue().totalNanos));
+            sample(out, histogram + "_count", label, entry.getKey(), Long.toString(entry.getValue().count));
+        }
+    }
+    
+    private static void gauge(StringBuilder out, String name, String help, long value) {
+        header(out, name, "gauge", help);
+        sample(out, name, null, null, Long.toString(value));
+    }
+    
+    private static void gaugeSeconds(StringBuilder out, String name, String help, long nanos) {
+        // Operations that have not happened yet are left out rather than reported as -1 seconds
+        if (nanos < 0) {
+            return;
+        }
+        header(out, name, "gauge", help);
+        sample(out, name, null, null, seconds(nanos));
+    }
+    
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+    
+    private static void sample(StringBuilder out, String name, String label, String value, String sample) {
+        out.append(name);
+        if (label != null) {
+            out.append('{').append(label).append("=\"").append(escape(value)).append("\"}");
+        }
+        out.append(' ').append(sample).append('\n');
+    }
+    
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1_000_000_000.0);
+    }
+    
+    /**
+     * Escape a label value as the text format requires
+     */
+    private static String escape(String value) {
+        if (value.indexOf('\\') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+    
+    /**
+     * Values of one scrape
+     */
+    private static final class Snapshot {
+        private long blocks;
+        private long scheduled;
+        private long deferred;
+        private long dispatchedLastTick;
+        private long[] runningByType;
+        private long storageLoadNanos;
+        private long lastSaveNanos;
+        private long lastSaveBytes;
+        private long saveCount;
+        private long saveNanos;
+        private long languageLoadNanos;
+        private Map<String, Series> blockSeries;
+        private Map<String, Series> tagSeries;
+    }
+    
+    /**
+     * Counters and histogram of a block, or summed over the blocks of a tag
+     */
+    private static final class Series {
+        private long fires;
+        private long count;
+        private long failures;
+        private long deferrals;
+        private long totalNanos;
+        private final long[] buckets;
+        
+        private Series() {
+            this.buckets = new long[BlockStats.BUCKETS];
+        }
+        
+        private Series(BlockStats stats) {
+            this.fires = stats.getFires();
+            this.failures = stats.getFailures();
+            this.deferrals = stats.getDeferrals();
+            this.totalNanos = stats.getTotalNanos();
+            this.buckets = stats.getHistogram();
+            
+            // Runs may be recorded while the stats are copied, so the histogram count comes from the buckets
+            for (long bucket : buckets) {
+                count += bucket;
+            }
+        }
+        
+        private void add(Series other) {
+            fires += other.fires;
+            count += other.count;
+            failures += other.failures;
+            deferrals += other.deferrals;
+            totalNanos += other.totalNanos;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] += other.buckets[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.bin.fastcmd.monitoring;
+
+/**
+ * Scheduler, storage and localization metrics of FastCMD, registered as com.bin.fastcmd:type=Scheduler.
+ * Times are in milliseconds; -1 means the operation has not happened yet.
+ */
+public interface SchedulerMXBean {
+    
+    int getBlockCount();
+    
+    /**
+     * Blocks currently scheduled or running
+     */
+    int getScheduledTaskCount();
+    
+    /**
+     * Due blocks waiting for dispatch budget at the end of the last tick
+     */
+    int getQueueDepth();
+    
+    int getDispatchedLastTick();
+    
+    long getTotalRuns();
+    
+    long getTotalFailures();
+    
+    double getStorageLoadMillis();
+    
+    double getLastSaveMillis();
+    
+    long getLastSaveBytes();
+    
+    long getSaveCount();
+    
+    double getLanguageLoadMillis();
+    
+    /**
+     * Start the block like /fastcmd run
+     *
+     * @return false if the block does not exist or is already running
+     */
+    boolean runBlock(String name);
+    
+    /**
+     * Stop the block like /fastcmd stop
+     *
+     * @return false if the block does not exist or is not running
+     */
+    boolean stopBlock(String name);
+}
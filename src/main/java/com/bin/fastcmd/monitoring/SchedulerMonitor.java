@@ -0,0 +1,106 @@
+package com.bin.fastcmd.monitoring;
+
+import com.bin.fastcmd.FastCMD;
+import com.bin.fastcmd.models.VirtualCommandBlock;
+import com.bin.fastcmd.utils.BlockStats;
+import com.bin.fastcmd.utils.TaskManager;
+
+/**
+ * Scheduler MBean. Every attribute reads volatile fields, atomic counters or concurrent maps,
+ * so polling it never waits for the main thread; operations are handed to the main thread.
+ */
+public class SchedulerMonitor implements SchedulerMXBean {
+    
+    private final FastCMD plugin;
+    
+    public SchedulerMonitor(FastCMD plugin) {
+        this.plugin = plugin;
+    }
+    
+    @Override
+    public int getBlockCount() {
+        return plugin.getStorageManager().getBlockCount();
+    }
+    
+    @Override
+    public int getScheduledTaskCount() {
+        return plugin.getTaskManager().getRunningCount();
+    }
+    
+    @Override
+    public int getQueueDepth() {
+        return plugin.getTaskManager().getDeferredCount();
+    }
+    
+    @Override
+    public int getDispatchedLastTick() {
+        return plugin.getTaskManager().getDispatchedLastTick();
+    }
+    
+    @Override
+    public long getTotalRuns() {
+        long runs = 0;
+        for (BlockStats stats : plugin.getTaskManager().getAllStats().values()) {
+            runs += stats.getFires();
+        }
+        return runs;
+    }
+    
+    @Override
+    public long getTotalFailures() {
+        long failures = 0;
+        for (BlockStats stats : plugin.getTaskManager().getAllStats().values()) {
+            failures += stats.getFailures();
+        }
+        return failures;
+    }
+    
+    @Override
+    public double getStorageLoadMillis() {
+        return toMillis(plugin.getStorageManager().getLoadNanos());
+    }
+    
+    @Override
+    public double getLastSaveMillis() {
+        return toMillis(plugin.getStorageManager().getLastSaveNanos());
+    }
+    
+    @Override
+    public long getLastSaveBytes() {
+        return plugin.getStorageManager().getLastSaveBytes();
+    }
+    
+    @Override
+    public long getSaveCount() {
+        return plugin.getStorageManager().getSaveCount();
+    }
+    
+    @Override
+    public double getLanguageLoadMillis() {
+        return toMillis(plugin.getLocalizationManager().getLoadNanos());
+    }
+    
+    private static double toMillis(long nanos) {
+        return nanos < 0 ? -1 : nanos / 1_000_000.0;
+    }
+    
+    @Override
+    public boolean runBlock(String name) {
+        VirtualCommandBlock commandBlock = plugin.getStorageManager().getCommandBlock(name);
+        if (!plugin.isEnabled() || commandBlock == null || commandBlock.isRunning()) {
+            return false;
+        }
+        plugin.getTaskManager().executeCommandBlock(commandBlock);
+        return true;
+    }
+    
+    @Override
+    public boolean stopBlock(String name) {
+        TaskManager taskManager = plugin.getTaskManager();
+        if (!plugin.isEnabled() || !plugin.getStorageManager().hasCommandBlock(name) || !taskManager.isTaskRunning(name)) {
+            return false;
+        }
+        taskManager.stopTask(name);
+        return true;
+    }
+}
@@ -0,0 +1,278 @@
+package com.bin.fastcmd.storage;
+
+import com.bin.fastcmd.models.CommandBlockType;
+import com.bin.fastcmd.models.VirtualCommandBlock;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Versioned binary snapshot of all command blocks.
+ *
+ * <pre>
+ * header   int magic, int version, int stringCount, int blockCount
+ * strings  stringCount x (int byteLength, UTF-8 bytes)
+ * records  blockCount x (int name, int command, byte type, long delay, long disableTime, int connected)
+ * extras   int extraCount, extraCount x (int block, int key, byte kind, payload)
+ * </pre>
+ *
+ * Block names are written first, so a block's name index is also its record index and
+ * {@code connected} refers to the target record directly. A connection to a block that does not
+ * exist is kept as {@code -2 - stringIndex}, and {@code -1} means no connection. Attributes outside
+ * the fixed record are stored in the extras section so they survive a round trip.
+ * Because records have a fixed width, large snapshots decode them in parallel.
+ */
+public final class BinarySnapshot {
+    
+    public static final int MAGIC = 0x46434D44; // "FCMD"
+    public static final int VERSION = 1;
+    
+    private static final int RECORD_SIZE = 4 + 4 + 1 + 8 + 8 + 4;
+    private static final int PARALLEL_THRESHOLD = 4096;
+    
+    private static final byte KIND_STRING = 'S';
+    private static final byte KIND_LONG = 'L';
+    private static final byte KIND_BOOLEAN = 'B';
+    private static final byte KIND_LIST = 'A';
+    
+    private static final String KEY_COMMAND = "command";
+    private static final String KEY_TYPE = "type";
+    private static final String KEY_DELAY = "delay";
+    private static final String KEY_DISABLE_TIME = "disable-time";
+    private static final String KEY_CONNECTED = "connected";
+    
+    private BinarySnapshot() {
+    }
+    
+    /**
+     * Encode serialized command blocks, as produced by {@link VirtualCommandBlock#toMap()}
+     */
+    public static byte[] encode(Map<String, Map<String, Object>> snapshot) throws IOException {
+        StringTable strings = new StringTable();
+        Map<String, Integer> blockIndex = new HashMap<>();
+        for (String name : snapshot.keySet()) {
+            blockIndex.put(name, strings.add(name));
+        }
+        
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(snapshot.size() * RECORD_SIZE);
+        DataOutputStream records = new DataOutputStream(recordBytes);
+        ByteArrayOutputStream extraBytes = new ByteArrayOutputStream();
+        DataOutputStream extras = new DataOutputStream(extraBytes);
+        int extraCount = 0;
+        
+        for (Map.Entry<String, Map<String, Object>> entry : snapshot.entrySet()) {
+            Map<String, Object> data = entry.getValue();
+            int index = blockIndex.get(entry.getKey());
+            
+            records.writeInt(index);
+            records.writeInt(strings.add(String.valueOf(data.get(KEY_COMMAND))));
+            records.writeByte(CommandBlockType.valueOf(String.valueOf(data.get(KEY_TYPE))).ordinal());
+            records.writeLong(toLong(data.get(KEY_DELAY)));
+            records.writeLong(toLong(data.get(KEY_DISABLE_TIME)));
+            
+            Object connected = data.get(KEY_CONNECTED);
+            if (connected == null) {
+                records.writeInt(-1);
+            } else {
+                Integer target = blockIndex.get(connected.toString());
+                records.writeInt(target != null ? target : -2 - strings.add(connected.toString()));
+            }
+            
+            for (Map.Entry<String, Object> attribute : data.entrySet()) {
+                if (isFixedKey(attribute.getKey()) || attribute.getValue() == null) {
+                    continue;
+                }
+                extras.writeInt(index);
+                extras.writeInt(strings.add(attribute.getKey()));
+                writeValue(extras, strings, attribute.getValue());
+                extraCount++;
+            }
+        }
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream(recordBytes.size() + extraBytes.size() + 1024);
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(strings.size());
+        data.writeInt(snapshot.size());
+        for (byte[] bytes : strings.encoded()) {
+            data.writeInt(bytes.length);
+            data.write(bytes);
+        }
+        recordBytes.writeTo(data);
+        data.writeInt(extraCount);
+        extraBytes.writeTo(data);
+        data.flush();
+        return out.toByteArray();
+    }
+    
+    /**
+     * Decode all command blocks from a buffer holding a complete snapshot
+     */
+    public static Map<String, VirtualCommandBlock> decode(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 16 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a FastCMD binary snapshot");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary snapshot version " + version);
+        }
+        
+        int stringCount = buffer.getInt();
+        int blockCount = buffer.getInt();
+        String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            strings[i] = readString(buffer, buffer.getInt());
+        }
+        
+        // Records are read with absolute offsets, so partitions never share buffer state
+        int recordsStart = buffer.position();
+        VirtualCommandBlock[] blocks = new VirtualCommandBlock[blockCount];
+        IntStream indices = IntStream.range(0, blockCount);
+        if (blockCount >= PARALLEL_THRESHOLD) {
+            indices = indices.parallel();
+        }
+        indices.forEach(i -> blocks[i] = readRecord(buffer, recordsStart + i * RECORD_SIZE, strings));
+        buffer.position(recordsStart + blockCount * RECORD_SIZE);
+        
+        Map<String, VirtualCommandBlock> result = new LinkedHashMap<>(Math.max(16, blockCount * 4 / 3 + 1));
+        for (VirtualCommandBlock block : blocks) {
+            result.put(block.getName(), block);
+        }
+        
+        // Rebuild blocks that carry attributes outside the fixed record
+        int extraCount = buffer.getInt();
+        Map<Integer, Map<String, Object>> extras = new HashMap<>();
+        for (int i = 0; i < extraCount; i++) {
+            int block = buffer.getInt();
+            String key = strings[buffer.getInt()];
+            extras.computeIfAbsent(block, k -> new LinkedHashMap<>()).put(key, readValue(buffer, strings));
+        }
+        for (Map.Entry<Integer, Map<String, Object>> entry : extras.entrySet()) {
+            VirtualCommandBlock block = blocks[entry.getKey()];
+            Map<String, Object> data = block.toMap();
+            data.putAll(entry.getValue());
+            result.put(block.getName(), VirtualCommandBlock.fromMap(block.getName(), data));
+        }
+        
+        return result;
+    }
+    
+    private static VirtualCommandBlock readRecord(ByteBuffer buffer, int offset, String[] strings) {
+        String name = strings[buffer.getInt(offset)];
+        String command = strings[buffer.getInt(offset + 4)];
+        CommandBlockType type = CommandBlockType.values()[buffer.get(offset + 8)];
+        long delay = buffer.getLong(offset + 9);
+        long disableTime = buffer.getLong(offset + 17);
+        int connected = buffer.getInt(offset + 25);
+        
+        String connectedBlock = null;
+        if (connected >= 0) {
+            connectedBlock = strings[connected];
+        } else if (connected <= -2) {
+            connectedBlock = strings[-2 - connected];
+        }
+        
+        return new VirtualCommandBlock(name, command, type, delay, disableTime, connectedBlock);
+    }
+    
+    private static String readString(ByteBuffer buffer, int length) {
+        if (buffer.hasArray()) {
+            String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static boolean isFixedKey(String key) {
+        return KEY_COMMAND.equals(key) || KEY_TYPE.equals(key) || KEY_DELAY.equals(key)
+            || KEY_DISABLE_TIME.equals(key) || KEY_CONNECTED.equals(key);
+    }
+    
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+    
+    private static void writeValue(DataOutputStream out, StringTable strings, Object value) throws IOException {
+        if (value instanceof Number) {
+            out.writeByte(KIND_LONG);
+            out.writeLong(((Number) value).longValue());
+        } else if (value instanceof Boolean) {
+            out.writeByte(KIND_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.writeByte(KIND_LIST);
+            out.writeInt(list.size());
+            for (Object item : list) {
+                out.writeInt(strings.add(String.valueOf(item)));
+            }
+        } else {
+            out.writeByte(KIND_STRING);
+            out.writeInt(strings.add(value.toString()));
+        }
+    }
+    
+    private static Object readValue(ByteBuffer buffer, String[] strings) throws IOException {
+        byte kind = buffer.get();
+        switch (kind) {
+            case KIND_LONG:
+                return buffer.getLong();
+            case KIND_BOOLEAN:
+                return buffer.get() != 0;
+            case KIND_LIST:
+                int size = buffer.getInt();
+                List<String> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(strings[buffer.getInt()]);
+                }
+                return list;
+            case KIND_STRING:
+                return strings[buffer.getInt()];
+            default:
+                throw new IOException("Unknown attribute kind " + kind);
+        }
+    }
+    
+    /**
+     * Deduplicating string table, indexed in insertion order
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        
+        int add(String value) {
+            Integer index = indices.get(value);
+            if (index == null) {
+                index = values.size();
+                indices.put(value, index);
+                values.add(value);
+            }
+            return index;
+        }
+        
+        int size() {
+            return values.size();
+        }
+        
+        List<byte[]> encoded() {
+            List<byte[]> encoded = new ArrayList<>(values.size());
+            for (String value : values) {
+                encoded.add(value.getBytes(StandardCharsets.UTF_8));
+            }
+            return encoded;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.bin.fastcmd.storage;
+
+import com.bin.fastcmd.FastCMD;
+import com.bin.fastcmd.models.VirtualCommandBlock;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Default backend: a YAML or binary snapshot plus an append-only journal per shard.
+ * Blocks without a namespace live in storage.yml / storage.journal, every namespace gets
+ * its own pair of files under storage/. A shard compacts itself once its journal passes
+ * the configured size, so a mutation never rewrites the blocks of other namespaces.
+ */
+public class FileStorageBackend implements StorageBackend {
+    
+    public static final String NAME = "file";
+    
+    private final FastCMD plugin;
+    private final StorageFormat format;
+    private final File shardFolder;
+    private final StorageShard defaultShard;
+    private final Map<String, StorageShard> shards;
+    private final Map<String, StorageShard> blockShards;
+    
+    public FileStorageBackend(FastCMD plugin, StorageFormat format) {
+        this.plugin = plugin;
+        this.format = format;
+        this.shardFolder = new File(plugin.getDataFolder(), "storage");
+        this.defaultShard = new StorageShard(null, plugin.getDataFolder(), "storage", format);
+        this.shards = new HashMap<>();
+        this.blockShards = new HashMap<>();
+    }
+    
+    @Override
+    public String getName() {
+        return NAME;
+    }
+    
+    public StorageFormat getFormat() {
+        return format;
+    }
+    
+    @Override
+    public void open() {
+        // Create data folder if it doesn't exist
+        if (!plugin.getDataFolder().exists()) {
+            plugin.getDataFolder().mkdirs();
+        }
+    }
+    
+    @Override
+    public Map<String, VirtualCommandBlock> load() throws IOException {
+        // Create storage file from template if it doesn't exist
+        if (!defaultShard.exists() && format == StorageFormat.YAML) {
+            plugin.saveResource("storage.yml", false);
+        }
+        
+        List<StorageShard> toLoad = new ArrayList<>();
+        toLoad.add(defaultShard);
+        for (String namespace : findNamespaces()) {
+            toLoad.add(getShard(namespace));
+        }
+        
+        // Shards are independent files, so they are read in parallel
+        long startTime = System.nanoTime();
+        int threads = Math.max(1, Math.min(toLoad.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService loader = Executors.newFixedThreadPool(threads);
+        List<Future<Map<String, VirtualCommandBlock>>> results = new ArrayList<>();
+        try {
+            for (StorageShard shard : toLoad) {
+                results.add(loader.submit((Callable<Map<String, VirtualCommandBlock>>) () -> shard.load(plugin.getLogger())));
+            }
+            
+            Map<String, VirtualCommandBlock> blocks = new LinkedHashMap<>();
+            blockShards.clear();
+            for (int i = 0; i < toLoad.size(); i++) {
+                for (VirtualCommandBlock block : await(results.get(i)).values()) {
+                    if (blocks.containsKey(block.getName())) {
+                        plugin.getLogger().warning("Ignoring duplicate command block '" + block.getName()
+                            + "' in " + toLoad.get(i).getSnapshotFile().getName());
+                        continue;
+                    }
+                    blocks.put(block.getName(), block);
+                    blockShards.put(block.getName(), toLoad.get(i));
+                }
+            }
+            
+            plugin.getLogger().info("Read " + toLoad.size() + " storage shards in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms");
+            return blocks;
+        } finally {
+            loader.shutdown();
+        }
+    }
+    
+    @Override
+    public Map<String, VirtualCommandBlock> loadNamespace(String namespace) throws IOException {
+        StorageShard shard = namespace != null ? getShard(namespace) : defaultShard;
+        blockShards.values().removeIf(owner -> owner == shard);
+        
+        Map<String, VirtualCommandBlock> blocks = shard.load(plugin.getLogger());
+        for (String name : blocks.keySet()) {
+            blockShards.put(name, shard);
+        }
+        return blocks;
+    }
+    
+    @Override
+    public void write(List<StorageMutation> mutations) throws IOException {
+        Map<StorageShard, List<String>> records = new LinkedHashMap<>();
+        
+        for (StorageMutation mutation : mutations) {
+            String name = mutation.getName();
+            StorageShard previous = blockShards.get(name);
+            
+            if (mutation.isDelete()) {
+                if (previous != null) {
+                    records.computeIfAbsent(previous, shard -> new ArrayList<>()).add(previous.delete(name));
+                    blockShards.remove(name);
+                }
+                continue;
+            }
+            
+            // A block that changed namespace is removed from its old shard
+            StorageShard target = shardFor(mutation.getData());
+            if (previous != null && previous != target) {
+                records.computeIfAbsent(previous, shard -> new ArrayList<>()).add(previous.delete(name));
+            }
+            records.computeIfAbsent(target, shard -> new ArrayList<>()).add(target.upsert(name, mutation.getData()));
+            blockShards.put(name, target);
+        }
+        
+        long compactSize = plugin.getConfigManager().getJournalCompactSize();
+        for (Map.Entry<StorageShard, List<String>> entry : records.entrySet()) {
+            StorageShard shard = entry.getKey();
+            shard.append(entry.getValue());
+            if (shard.getJournalBytes() >= compactSize) {
+                shard.compact();
+            }
+        }
+    }
+    
+    @Override
+    public void writeSnapshot(Map<String, Map<String, Object>> snapshot) throws IOException {
+        Map<StorageShard, Map<String, Map<String, Object>>> byShard = new LinkedHashMap<>();
+        byShard.put(defaultShard, new LinkedHashMap<>());
+        blockShards.clear();
+        for (Map.Entry<String, Map<String, Object>> entry : snapshot.entrySet()) {
+            StorageShard shard = shardFor(entry.getValue());
+            byShard.computeIfAbsent(shard, key -> new LinkedHashMap<>()).put(entry.getKey(), entry.getValue());
+            blockShards.put(entry.getKey(), shard);
+        }
+        
+        // Files of namespaces this backend never loaded, e.g. before a migration, would bring old blocks back
+        for (String namespace : findNamespaces()) {
+            getShard(namespace);
+        }
+        for (StorageShard shard : shards.values()) {
+            if (!byShard.containsKey(shard)) {
+                shard.deleteFiles();
+            }
+        }
+        for (Map.Entry<StorageShard, Map<String, Map<String, Object>>> entry : byShard.entrySet()) {
+            entry.getKey().replace(entry.getValue());
+        }
+    }
+    
+    @Override
+    public long getSize() {
+        long size = defaultShard.getSize();
+        for (StorageShard shard : shards.values()) {
+            size += shard.getSize();
+        }
+        return size;
+    }
+    
+    @Override
+    public void close() {
+        // Every write closes its file, so there is nothing to release
+    }
+    
+    private StorageShard shardFor(Map<String, Object> data) {
+        Object namespace = data.get("namespace");
+        return namespace != null ? getShard(namespace.toString()) : defaultShard;
+    }
+    
+    private StorageShard getShard(String namespace) {
+        return shards.computeIfAbsent(namespace, key -> new StorageShard(key, shardFolder, key, format));
+    }
+    
+    /**
+     * Namespaces with at least one file under storage/
+     */
+    private List<String> findNamespaces() {
+        List<String> namespaces = new ArrayList<>();
+        File[] files = shardFolder.listFiles();
+        if (files == null) {
+            return namespaces;
+        }
+        for (File file : files) {
+            String fileName = file.getName();
+            int extensionStart = fileName.lastIndexOf('.');
+            if (extensionStart <= 0) {
+                continue;
+            }
+            String extension = fileName.substring(extensionStart + 1);
+            String namespace = fileName.substring(0, extensionStart);
+            boolean shardFile = "journal".equals(extension);
+            for (StorageFormat snapshotFormat : StorageFormat.values()) {
+                shardFile |= snapshotFormat.getExtension().equals(extension);
+            }
+            if (shardFile && !namespaces.contains(namespace)) {
+                namespaces.add(namespace);
+            }
+        }
+        return namespaces;
+    }
+    
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading storage", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.bin.fastcmd.storage;
+
+import com.bin.fastcmd.models.VirtualCommandBlock;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Append-only journal of command block mutations.
+ * Each line is one record: an upsert carrying the block data, or a delete carrying only the name.
+ */
+public class MutationJournal {
+    
+    private static final char UPSERT = 'U';
+    private static final char DELETE = 'D';
+    
+    private final File file;
+    
+    public MutationJournal(File file) {
+        this.file = file;
+    }
+    
+    public File getFile() {
+        return file;
+    }
+    
+    public long size() {
+        return file.length();
+    }
+    
+    /**
+     * Encode the record for a single mutation
+     */
+    public static String record(StorageMutation mutation) {
+        return mutation.isDelete() ? deleteRecord(mutation.getName()) : upsertRecord(mutation.getName(), mutation.getData());
+    }
+    
+    /**
+     * Encode an upsert record for the given block data
+     */
+    public static String upsertRecord(String name, Map<String, Object> data) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(UPSERT).append('\t').append(escape(name));
+        appendData(builder, data);
+        return builder.append('\n').toString();
+    }
+    
+    /**
+     * Encode block data as tab separated key/value pairs on a single line
+     */
+    public static String encodeData(Map<String, Object> data) {
+        StringBuilder builder = new StringBuilder();
+        appendData(builder, data);
+        return builder.length() > 0 ? builder.substring(1) : "";
+    }
+    
+    /**
+     * Decode block data produced by {@link #encodeData(Map)}
+     */
+    public static Map<String, Object> decodeData(String encoded) {
+        if (encoded.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        return decodeFields(encoded.split("\t", -1), 0);
+    }
+    
+    private static void appendData(StringBuilder builder, Map<String, Object> data) {
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            Object value = entry.getValue();
+            if (value == null) {
+                continue;
+            }
+            builder.append('\t').append(escape(entry.getKey())).append('\t');
+            if (value instanceof Number) {
+                builder.append('L').append(((Number) value).longValue());
+            } else if (value instanceof Boolean) {
+                builder.append('B').append(value);
+            } else if (value instanceof List) {
+                builder.append('A');
+                List<?> list = (List<?>) value;
+                for (int i = 0; i < list.size(); i++) {
+                    if (i > 0) {
+                        builder.append(',');
+                    }
+                    builder.append(escape(String.valueOf(list.get(i))));
+                }
+            } else {
+                builder.append('S').append(escape(value.toString()));
+            }
+        }
+    }
+    
+    /**
+     * Encode a delete record for the given block name
+     */
+    public static String deleteRecord(String name) {
+        return DELETE + "\t" + escape(name) + "\n";
+    }
+    
+    /**
+     * Append encoded records to the end of the journal
+     */
+    public void append(List<String> records) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (String record : records) {
+            builder.append(record);
+        }
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(builder.toString().getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+    }
+    
+    /**
+     * Drop all records, usually after they were folded into a snapshot
+     */
+    public void truncate() throws IOException {
+        Files.write(file.toPath(), new byte[0]);
+    }
+    
+    /**
+     * Apply every complete record in the journal to the given blocks.
+     * A trailing record without its line terminator was cut off by a crash and is ignored.
+     *
+     * @return the number of records applied
+     */
+    public int replay(Map<String, VirtualCommandBlock> blocks, Logger logger) throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+        
+        String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        int applied = 0;
+        int lineStart = 0;
+        int lineNumber = 0;
+        
+        while (lineStart < content.length()) {
+            int lineEnd = content.indexOf('\n', lineStart);
+            lineNumber++;
+            if (lineEnd < 0) {
+                logger.warning("Ignoring truncated record at the end of " + file.getName());
+                break;
+            }
+            
+            String line = content.substring(lineStart, lineEnd);
+            lineStart = lineEnd + 1;
+            if (line.isEmpty()) {
+                continue;
+            }
+            
+            try {
+                applyRecord(line, blocks);
+                applied++;
+            } catch (Exception e) {
+                logger.warning("Skipping malformed record " + lineNumber + " in " + file.getName() + ": " + e.getMessage());
+            }
+        }
+        
+        return applied;
+    }
+    
+    private static void applyRecord(String line, Map<String, VirtualCommandBlock> blocks) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length < 2 || fields[0].length() != 1) {
+            throw new IllegalArgumentException("missing record header");
+        }
+        
+        String name = unescape(fields[1]);
+        switch (fields[0].charAt(0)) {
+            case DELETE:
+                blocks.remove(name);
+                break;
+            case UPSERT:
+                blocks.put(name, VirtualCommandBlock.fromMap(name, decodeFields(fields, 2)));
+                break;
+            default:
+                throw new IllegalArgumentException("unknown record type " + fields[0]);
+        }
+    }
+    
+    private static Map<String, Object> decodeFields(String[] fields, int start) {
+        if ((fields.length - start) % 2 != 0) {
+            throw new IllegalArgumentException("unpaired field");
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        for (int i = start; i < fields.length; i += 2) {
+            data.put(unescape(fields[i]), decodeValue(fields[i + 1]));
+        }
+        return data;
+    }
+    
+    private static Object decodeValue(String field) {
+        if (field.isEmpty()) {
+            throw new IllegalArgumentException("empty value");
+        }
+        String raw = field.substring(1);
+        switch (field.charAt(0)) {
+            case 'L':
+                return Long.parseLong(raw);
+            case 'B':
+                return Boolean.parseBoolean(raw);
+            case 'A':
+                List<String> list = new ArrayList<>();
+                if (!raw.isEmpty()) {
+                    for (String item : splitList(raw)) {
+                        list.add(unescape(item));
+                    }
+                }
+                return list;
+            case 'S':
+                return unescape(raw);
+            default:
+                throw new IllegalArgumentException("unknown value type " + field.charAt(0));
+        }
+    }
+    
+    private static List<String> splitList(String raw) {
+        List<String> items = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == ',') {
+                items.add(raw.substring(start, i));
+                start = i + 1;
+            }
+        }
+        items.add(raw.substring(start));
+        return items;
+    }
+    
+    private static String escape(String value) {
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case ',':
+                    builder.append("\\,");
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+    
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                switch (next) {
+                    case 't':
+                        builder.append('\t');
+                        break;
+                    case 'n':
+                        builder.append('\n');
+                        break;
+                    case 'r':
+                        builder.append('\r');
+                        break;
+                    default:
+                        builder.append(next);
+                }
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+}
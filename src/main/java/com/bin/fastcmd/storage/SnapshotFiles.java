@@ -0,0 +1,133 @@
+package com.bin.fastcmd.storage;
+
+import com.bin.fastcmd.models.VirtualCommandBlock;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads and writes command block snapshot files in YAML or binary format
+ */
+public final class SnapshotFiles {
+    
+    private static final int PARALLEL_THRESHOLD = 4096;
+    
+    private SnapshotFiles() {
+    }
+    
+    /**
+     * Copy command blocks into plain maps so they can be serialized off the main thread
+     */
+    public static Map<String, Map<String, Object>> toSnapshot(Map<String, VirtualCommandBlock> blocks) {
+        Map<String, Map<String, Object>> snapshot = new LinkedHashMap<>();
+        for (Map.Entry<String, VirtualCommandBlock> entry : blocks.entrySet()) {
+            snapshot.put(entry.getKey(), Collections.unmodifiableMap(entry.getValue().toMap()));
+        }
+        return Collections.unmodifiableMap(snapshot);
+    }
+    
+    public static byte[] encode(Map<String, Map<String, Object>> snapshot, StorageFormat format) throws IOException {
+        if (format == StorageFormat.BINARY) {
+            return BinarySnapshot.encode(snapshot);
+        }
+        
+        YamlConfiguration storageConfig = new YamlConfiguration();
+        ConfigurationSection blocksSection = storageConfig.createSection("virtual-command-blocks");
+        for (Map.Entry<String, Map<String, Object>> entry : snapshot.entrySet()) {
+            blocksSection.createSection(entry.getKey(), entry.getValue());
+        }
+        
+        // Save with UTF-8 encoding
+        return storageConfig.saveToString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    public static void write(File file, Map<String, Map<String, Object>> snapshot, StorageFormat format) throws IOException {
+        writeAtomically(file, encode(snapshot, format));
+    }
+    
+    /**
+     * Write to a temp file next to the target, then swap it in
+     */
+    public static void writeAtomically(File file, byte[] content) throws IOException {
+        Path target = file.toPath();
+        Path temp = target.resolveSibling(file.getName() + ".tmp");
+        Files.write(temp, content);
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    public static Map<String, VirtualCommandBlock> read(File file, StorageFormat format, Logger logger) throws IOException {
+        if (format == StorageFormat.BINARY) {
+            // Read the whole file in one pass; a mapped buffer would keep the file locked on Windows
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // Keep reading until the buffer is full
+                }
+                buffer.flip();
+                return BinarySnapshot.decode(buffer);
+            }
+        }
+        
+        // Load with UTF-8 encoding
+        String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        FileConfiguration storageConfig = YamlConfiguration.loadConfiguration(new InputStreamReader(
+            new java.io.ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), 
+            StandardCharsets.UTF_8
+        ));
+        
+        Map<String, VirtualCommandBlock> blocks = new LinkedHashMap<>();
+        ConfigurationSection blocksSection = storageConfig.getConfigurationSection("virtual-command-blocks");
+        if (blocksSection == null) {
+            return blocks;
+        }
+        
+        // Parsing is single threaded, but large files build their blocks across all cores
+        List<String> names = new ArrayList<>(blocksSection.getKeys(false));
+        Stream<String> stream = names.size() >= PARALLEL_THRESHOLD ? names.parallelStream() : names.stream();
+        List<VirtualCommandBlock> loaded = stream
+            .map(name -> {
+                ConfigurationSection blockSection = blocksSection.getConfigurationSection(name);
+                if (blockSection == null) {
+                    return null;
+                }
+                try {
+                    return VirtualCommandBlock.fromMap(name, blockSection.getValues(false));
+                } catch (Exception e) {
+                    logger.warning("Failed to load command block '" + name + "': " + e.getMessage());
+                    return null;
+                }
+            })
+            .collect(Collectors.toList());
+        
+        for (VirtualCommandBlock block : loaded) {
+            if (block != null) {
+                blocks.put(block.getName(), block);
+            }
+        }
+        return blocks;
+    }
+}
@@ -0,0 +1,203 @@
+package com.bin.fastcmd.storage;
+
+import com.bin.fastcmd.FastCMD;
+import com.bin.fastcmd.models.CommandBlockType;
+import com.bin.fastcmd.models.VirtualCommandBlock;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Embedded SQLite backend storing one row per command block in storage.db.
+ * Mutations become single-row upserts and deletes, batched into one transaction per flush.
+ * Uses the SQLite driver bundled with the server, so no extra dependency is needed.
+ */
+public class SqliteStorageBackend implements StorageBackend {
+    
+    public static final String NAME = "sqlite";
+    
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS command_blocks ("
+        + "name TEXT PRIMARY KEY, command TEXT NOT NULL, type TEXT NOT NULL, delay INTEGER NOT NULL, "
+        + "disable_time INTEGER NOT NULL, connected TEXT, attributes TEXT)";
+    private static final String SELECT_ALL = "SELECT name, command, type, delay, disable_time, connected, attributes FROM command_blocks";
+    private static final String UPSERT = "INSERT OR REPLACE INTO command_blocks "
+        + "(name, command, type, delay, disable_time, connected, attributes) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE = "DELETE FROM command_blocks WHERE name = ?";
+    private static final String DELETE_ALL = "DELETE FROM command_blocks";
+    
+    private final FastCMD plugin;
+    private final File databaseFile;
+    private Connection connection;
+    
+    public SqliteStorageBackend(FastCMD plugin) {
+        this.plugin = plugin;
+        this.databaseFile = new File(plugin.getDataFolder(), "storage.db");
+    }
+    
+    @Override
+    public String getName() {
+        return NAME;
+    }
+    
+    @Override
+    public synchronized void open() throws IOException {
+        if (!plugin.getDataFolder().exists()) {
+            plugin.getDataFolder().mkdirs();
+        }
+        
+        try {
+            Class.forName("org.sqlite.JDBC");
+            connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_TABLE);
+            }
+        } catch (ClassNotFoundException | SQLException e) {
+            throw new IOException("Failed to open " + databaseFile.getName() + ": " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public synchronized Map<String, VirtualCommandBlock> load() throws IOException {
+        Map<String, VirtualCommandBlock> blocks = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(SELECT_ALL)) {
+            while (result.next()) {
+                String name = result.getString(1);
+                try {
+                    blocks.put(name, readBlock(result));
+                } catch (Exception e) {
+                    plugin.getLogger().warning("Failed to load command block '" + name + "': " + e.getMessage());
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to read " + databaseFile.getName() + ": " + e.getMessage(), e);
+        }
+        return blocks;
+    }
+    
+    @Override
+    public synchronized Map<String, VirtualCommandBlock> loadNamespace(String namespace) throws IOException {
+        // The namespace lives in the attributes column, so the rows are filtered after loading
+        Map<String, VirtualCommandBlock> blocks = load();
+        blocks.values().removeIf(block -> namespace == null
+            ? block.getNamespace() != null
+            : !namespace.equals(block.getNamespace()));
+        return blocks;
+    }
+    
+    private static VirtualCommandBlock readBlock(ResultSet result) throws SQLException {
+        String name = result.getString(1);
+        String command = result.getString(2);
+        CommandBlockType type = CommandBlockType.valueOf(result.getString(3));
+        long delay = result.getLong(4);
+        long disableTime = result.getLong(5);
+        String connected = result.getString(6);
+        String attributes = result.getString(7);
+        
+        VirtualCommandBlock block = new VirtualCommandBlock(name, command, type, delay, disableTime, connected);
+        if (attributes == null || attributes.isEmpty()) {
+            return block;
+        }
+        
+        // Attributes outside the fixed columns go through the regular deserialization
+        Map<String, Object> data = block.toMap();
+        data.putAll(MutationJournal.decodeData(attributes));
+        return VirtualCommandBlock.fromMap(name, data);
+    }
+    
+    @Override
+    public synchronized void write(List<StorageMutation> mutations) throws IOException {
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement upsert = connection.prepareStatement(UPSERT);
+                 PreparedStatement delete = connection.prepareStatement(DELETE)) {
+                for (StorageMutation mutation : mutations) {
+                    if (mutation.isDelete()) {
+                        delete.setString(1, mutation.getName());
+                        delete.addBatch();
+                    } else {
+                        bindBlock(upsert, mutation.getName(), mutation.getData());
+                        upsert.addBatch();
+                    }
+                }
+                upsert.executeBatch();
+                delete.executeBatch();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            rollback();
+            throw new IOException("Failed to write to " + databaseFile.getName() + ": " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public synchronized void writeSnapshot(Map<String, Map<String, Object>> snapshot) throws IOException {
+        try {
+            connection.setAutoCommit(false);
+            try (Statement clear = connection.createStatement();
+                 PreparedStatement upsert = connection.prepareStatement(UPSERT)) {
+                clear.executeUpdate(DELETE_ALL);
+                for (Map.Entry<String, Map<String, Object>> entry : snapshot.entrySet()) {
+                    bindBlock(upsert, entry.getKey(), entry.getValue());
+                    upsert.addBatch();
+                }
+                upsert.executeBatch();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            rollback();
+            throw new IOException("Failed to write to " + databaseFile.getName() + ": " + e.getMessage(), e);
+        }
+    }
+    
+    private static void bindBlock(PreparedStatement statement, String name, Map<String, Object> data) throws SQLException {
+        Map<String, Object> attributes = new LinkedHashMap<>(data);
+        statement.setString(1, name);
+        statement.setString(2, String.valueOf(attributes.remove("command")));
+        statement.setString(3, String.valueOf(attributes.remove("type")));
+        statement.setLong(4, toLong(attributes.remove("delay")));
+        statement.setLong(5, toLong(attributes.remove("disable-time")));
+        Object connected = attributes.remove("connected");
+        statement.setString(6, connected != null ? connected.toString() : null);
+        statement.setString(7, attributes.isEmpty() ? null : MutationJournal.encodeData(attributes));
+    }
+    
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+    
+    private void rollback() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Failed to roll back " + databaseFile.getName() + ": " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public long getSize() {
+        return databaseFile.length();
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Failed to close " + databaseFile.getName() + ": " + e.getMessage());
+        }
+        connection = null;
+    }
+}
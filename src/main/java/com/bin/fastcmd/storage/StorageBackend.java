@@ -0,0 +1,57 @@
+package com.bin.fastcmd.storage;
+
+import com.bin.fastcmd.models.VirtualCommandBlock;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistence backend for virtual command blocks.
+ * The in-memory registry lives in StorageManager; a backend only has to persist its changes.
+ * Methods are never called from more than one thread at a time.
+ */
+public interface StorageBackend {
+    
+    /**
+     * Name used for this backend in config.yml
+     */
+    String getName();
+    
+    /**
+     * Prepare the backend for use, creating files or tables as needed
+     */
+    void open() throws IOException;
+    
+    /**
+     * Load every persisted command block
+     */
+    Map<String, VirtualCommandBlock> load() throws IOException;
+    
+    /**
+     * Load the persisted command blocks of a single namespace again
+     *
+     * @param namespace the namespace, or null for blocks without one
+     */
+    Map<String, VirtualCommandBlock> loadNamespace(String namespace) throws IOException;
+    
+    /**
+     * Persist a batch of mutations, at most one per block
+     */
+    void write(List<StorageMutation> mutations) throws IOException;
+    
+    /**
+     * Replace everything persisted with the given serialized command blocks
+     */
+    void writeSnapshot(Map<String, Map<String, Object>> snapshot) throws IOException;
+    
+    /**
+     * Bytes the persisted command blocks take up on disk
+     */
+    long getSize();
+    
+    /**
+     * Release files or connections held by the backend
+     */
+    void close();
+}
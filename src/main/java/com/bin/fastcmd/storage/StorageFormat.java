@@ -0,0 +1,32 @@
+package com.bin.fastcmd.storage;
+
+/**
+ * On-disk formats for command block snapshots
+ */
+public enum StorageFormat {
+    YAML("yml"),
+    BINARY("dat");
+    
+    private final String extension;
+    
+    StorageFormat(String extension) {
+        this.extension = extension;
+    }
+    
+    public String getExtension() {
+        return extension;
+    }
+    
+    public String getSnapshotFileName() {
+        return "storage." + extension;
+    }
+    
+    public static StorageFormat fromString(String name) {
+        for (StorageFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,44 @@
+package com.bin.fastcmd.storage;
+
+import com.bin.fastcmd.models.VirtualCommandBlock;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A single pending change to persisted command blocks.
+ * Upserts carry an immutable copy of the block data so they can be written off the main thread.
+ */
+public final class StorageMutation {
+    
+    private final String name;
+    private final Map<String, Object> data;
+    
+    private StorageMutation(String name, Map<String, Object> data) {
+        this.name = name;
+        this.data = data;
+    }
+    
+    public static StorageMutation upsert(VirtualCommandBlock block) {
+        return new StorageMutation(block.getName(), Collections.unmodifiableMap(block.toMap()));
+    }
+    
+    public static StorageMutation delete(String name) {
+        return new StorageMutation(name, null);
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Serialized block data, or null for a delete
+     */
+    public Map<String, Object> getData() {
+        return data;
+    }
+    
+    public boolean isDelete() {
+        return data == null;
+    }
+}
@@ -0,0 +1,205 @@
+package com.bin.fastcmd.storage;
+
+import com.bin.fastcmd.models.VirtualCommandBlock;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * One snapshot file plus its journal, holding the command blocks of a single namespace.
+ * Keeps the serialized data of its blocks so it can compact itself without the main thread.
+ */
+public class StorageShard {
+    
+    private final String namespace;
+    private final File folder;
+    private final String baseName;
+    private final StorageFormat format;
+    private final MutationJournal journal;
+    private final Map<String, Map<String, Object>> blocks;
+    private long journalBytes;
+    
+    /**
+     * @param namespace the namespace, or null for blocks without one
+     * @param folder    folder holding the snapshot and journal files
+     * @param baseName  file name without extension
+     */
+    public StorageShard(String namespace, File folder, String baseName, StorageFormat format) {
+        this.namespace = namespace;
+        this.folder = folder;
+        this.baseName = baseName;
+        this.format = format;
+        this.journal = new MutationJournal(new File(folder, baseName + ".journal"));
+        this.blocks = new LinkedHashMap<>();
+    }
+    
+    public String getNamespace() {
+        return namespace;
+    }
+    
+    public File getSnapshotFile() {
+        return getSnapshotFile(format);
+    }
+    
+    private File getSnapshotFile(StorageFormat snapshotFormat) {
+        return new File(folder, baseName + "." + snapshotFormat.getExtension());
+    }
+    
+    public boolean exists() {
+        for (StorageFormat snapshotFormat : StorageFormat.values()) {
+            if (getSnapshotFile(snapshotFormat).exists()) {
+                return true;
+            }
+        }
+        return journal.getFile().exists();
+    }
+    
+    /**
+     * Read the snapshot and replay the journal, compacting right away if the journal had records
+     * or the snapshot was found in another format
+     */
+    public Map<String, VirtualCommandBlock> load(Logger logger) throws IOException {
+        File storageFile = getSnapshotFile();
+        
+        // Fall back to a snapshot in the other format when the storage format was switched
+        File sourceFile = storageFile;
+        StorageFormat sourceFormat = format;
+        if (!storageFile.exists()) {
+            for (StorageFormat other : StorageFormat.values()) {
+                if (other != format && getSnapshotFile(other).exists()) {
+                    sourceFile = getSnapshotFile(other);
+                    sourceFormat = other;
+                }
+            }
+        }
+        
+        Map<String, VirtualCommandBlock> loaded = new LinkedHashMap<>();
+        if (sourceFile.exists()) {
+            loaded.putAll(SnapshotFiles.read(sourceFile, sourceFormat, logger));
+        }
+        
+        // Replay changes made since the last compaction
+        boolean compact = sourceFormat != format;
+        try {
+            int replayed = journal.replay(loaded, logger);
+            if (replayed > 0 || journal.size() > 0) {
+                logger.info("Replayed " + replayed + " journal records for " + describe());
+                compact = true;
+            }
+        } catch (IOException e) {
+            logger.severe("Failed to replay " + journal.getFile().getName() + ": " + e.getMessage());
+        }
+        
+        // Blocks belong to the shard they were stored in
+        for (VirtualCommandBlock block : loaded.values()) {
+            block.setNamespace(namespace);
+        }
+        
+        blocks.clear();
+        blocks.putAll(SnapshotFiles.toSnapshot(loaded));
+        journalBytes = 0;
+        
+        if (compact) {
+            compact();
+        }
+        
+        // Keep the old snapshot around, but out of the way of future loads
+        if (sourceFormat != format && storageFile.exists()) {
+            File migratedFile = new File(sourceFile.getPath() + ".migrated");
+            if (sourceFile.renameTo(migratedFile)) {
+                logger.info("Migrated " + sourceFile.getName() + " to " + storageFile.getName());
+            }
+        }
+        
+        return loaded;
+    }
+    
+    /**
+     * Journal record for a block stored in or moved into this shard
+     */
+    public String upsert(String name, Map<String, Object> data) {
+        blocks.put(name, data);
+        return MutationJournal.upsertRecord(name, data);
+    }
+    
+    /**
+     * Journal record for a block deleted from or moved out of this shard
+     */
+    public String delete(String name) {
+        blocks.remove(name);
+        return MutationJournal.deleteRecord(name);
+    }
+    
+    public void append(List<String> records) throws IOException {
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+        journal.append(records);
+        for (String record : records) {
+            journalBytes += record.getBytes(StandardCharsets.UTF_8).length;
+        }
+    }
+    
+    public long getJournalBytes() {
+        return journalBytes;
+    }
+    
+    /**
+     * Bytes of the snapshot and journal files of this shard
+     */
+    public long getSize() {
+        return getSnapshotFile().length() + journal.size();
+    }
+    
+    public boolean isEmpty() {
+        return blocks.isEmpty();
+    }
+    
+    /**
+     * Replace the contents of this shard
+     */
+    public void replace(Map<String, Map<String, Object>> snapshot) throws IOException {
+        blocks.clear();
+        blocks.putAll(snapshot);
+        compact();
+    }
+    
+    /**
+     * Rewrite the snapshot from the blocks held by this shard and empty the journal
+     */
+    public void compact() throws IOException {
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+        SnapshotFiles.write(getSnapshotFile(), Collections.unmodifiableMap(new LinkedHashMap<>(blocks)), format);
+        journal.truncate();
+        journalBytes = 0;
+    }
+    
+    /**
+     * Remove the files of an emptied shard
+     */
+    public void deleteFiles() {
+        List<File> files = new ArrayList<>();
+        for (StorageFormat snapshotFormat : StorageFormat.values()) {
+            files.add(getSnapshotFile(snapshotFormat));
+        }
+        files.add(journal.getFile());
+        for (File file : files) {
+            file.delete();
+        }
+        blocks.clear();
+        journalBytes = 0;
+    }
+    
+    private String describe() {
+        return namespace != null ? "namespace '" + namespace + "'" : "default storage";
+    }
+}
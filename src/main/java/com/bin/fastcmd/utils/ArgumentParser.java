@@ -49,12 +49,29 @@ public class ArgumentParser {
             if (arg.startsWith("--") && arg.contains(":")) {
                 String[] flagParts = arg.substring(2).split(":", 2);
                 if (flagParts.length == 2) {
-                    flags.put(flagParts[0], flagParts[1]);
+                    String value = flagParts[1];
+                    
+                    // Values in double quotes may contain spaces, e.g. --cron:"0 4 * * *"
+                    if (value.startsWith("\"")) {
+                        StringBuilder valueBuilder = new StringBuilder(value.substring(1));
+                        while (!isClosingQuote(valueBuilder) && i + 1 < args.length) {
+                            valueBuilder.append(' ').append(args[++i]);
+                        }
+                        if (isClosingQuote(valueBuilder)) {
+                            valueBuilder.setLength(valueBuilder.length() - 1);
+                        }
+                        value = valueBuilder.toString();
+                    }
+                    flags.put(flagParts[0], value);
                 }
             }
         }
     }
     
+    private static boolean isClosingQuote(StringBuilder value) {
+        return value.length() > 0 && value.charAt(value.length() - 1) == '"';
+    }
+    
     public String getCommand() {
         return command;
     }
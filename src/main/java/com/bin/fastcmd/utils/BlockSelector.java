@@ -0,0 +1,99 @@
+package com.bin.fastcmd.utils;
+
+import com.bin.fastcmd.managers.StorageManager;
+import com.bin.fastcmd.models.VirtualCommandBlock;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Selects command blocks for bulk operations by tag (--tag:arena), name glob (--match:"event_*")
+ * or name regular expression (--regex:"event_[0-9]+"). A block has to match every selector given.
+ */
+public class BlockSelector {
+    
+    private final String tag;
+    private final List<Pattern> patterns;
+    
+    private BlockSelector(String tag, List<Pattern> patterns) {
+        this.tag = tag;
+        this.patterns = patterns;
+    }
+    
+    /**
+     * Whether the arguments select blocks instead of naming a single one
+     */
+    public static boolean isPresent(ArgumentParser parser) {
+        return parser.hasFlag("tag") || parser.hasFlag("match") || parser.hasFlag("regex");
+    }
+    
+    /**
+     * Create a selector from the --tag:, --match: and --regex: flags
+     *
+     * @throws IllegalArgumentException if the regular expression is not valid
+     */
+    public static BlockSelector fromParser(ArgumentParser parser) {
+        List<Pattern> patterns = new ArrayList<>();
+        if (parser.hasFlag("match")) {
+            patterns.add(globToPattern(parser.getFlag("match")));
+        }
+        if (parser.hasFlag("regex")) {
+            patterns.add(Pattern.compile(parser.getFlag("regex")));
+        }
+        return new BlockSelector(parser.getFlag("tag"), patterns);
+    }
+    
+    /**
+     * Selected blocks, ordered by name. Tagged blocks come from the tag index, so a tag selector
+     * only looks at the blocks carrying the tag.
+     */
+    public List<VirtualCommandBlock> select(StorageManager storage) {
+        Collection<VirtualCommandBlock> candidates = tag != null
+            ? storage.getCommandBlocksWithTag(tag)
+            : storage.getAllCommandBlocks().values();
+        
+        List<VirtualCommandBlock> selected = new ArrayList<>();
+        for (VirtualCommandBlock block : candidates) {
+            if (matches(block.getName())) {
+                selected.add(block);
+            }
+        }
+        selected.sort(Comparator.comparing(VirtualCommandBlock::getName));
+        return selected;
+    }
+    
+    private boolean matches(String name) {
+        for (Pattern pattern : patterns) {
+            if (!pattern.matcher(name).matches()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Convert a glob where * matches any characters and ? a single one into a pattern
+     */
+    public static Pattern globToPattern(String glob) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            if (c != '*' && c != '?') {
+                literal.append(c);
+                continue;
+            }
+            if (literal.length() > 0) {
+                regex.append(Pattern.quote(literal.toString()));
+                literal.setLength(0);
+            }
+            regex.append(c == '*' ? ".*" : ".");
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
@@ -0,0 +1,140 @@
+package com.bin.fastcmd.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and a dispatch time histogram of one command block.
+ * Runs are recorded on the main thread without allocating; the histogram has one bucket per power
+ * of two nanoseconds, so recording a run is a few increments. All values can be read from any thread.
+ */
+public class BlockStats {
+    
+    /**
+     * Bucket i holds times below 2^i ns and at least 2^(i-1) ns; the last one holds everything slower
+     */
+    public static final int BUCKETS = 40;
+    
+    private final LongAdder fires = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder deferrals = new LongAdder();
+    private final LongAdder deferredTicks = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private volatile long maxNanos;
+    private volatile long lastDeferral;
+    
+    /**
+     * Record a run of the block's command
+     *
+     * @param success whether the command succeeded
+     * @param nanos how long the command took
+     */
+    public void recordRun(boolean success, long nanos) {
+        fires.increment();
+        if (!success) {
+            failures.increment();
+        }
+        totalNanos.add(nanos);
+        buckets.incrementAndGet(bucketOf(nanos));
+        
+        // Only the main thread records runs, so the maximum needs no compare-and-set
+        if (nanos > maxNanos) {
+            maxNanos = nanos;
+        }
+    }
+    
+    /**
+     * Record how many ticks a run waited for dispatch budget
+     */
+    public void recordDeferral(long ticks) {
+        lastDeferral = ticks;
+        if (ticks > 0) {
+            deferrals.increment();
+            deferredTicks.add(ticks);
+        }
+    }
+    
+    private static int bucketOf(long nanos) {
+        return Math.min(64 - Long.numberOfLeadingZeros(Math.max(nanos, 0)), BUCKETS - 1);
+    }
+    
+    public long getFires() {
+        return fires.sum();
+    }
+    
+    public long getSuccesses() {
+        return Math.max(0, fires.sum() - failures.sum());
+    }
+    
+    public long getFailures() {
+        return failures.sum();
+    }
+    
+    /**
+     * How many runs waited for dispatch budget
+     */
+    public long getDeferrals() {
+        return deferrals.sum();
+    }
+    
+    public long getDeferredTicks() {
+        return deferredTicks.sum();
+    }
+    
+    public long getLastDeferral() {
+        return lastDeferral;
+    }
+    
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+    
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+    
+    public long getAverageNanos() {
+        long count = fires.sum();
+        return count > 0 ? totalNanos.sum() / count : 0;
+    }
+    
+    /**
+     * Upper bound of the dispatch time below which the given fraction of runs finished,
+     * accurate to a factor of two
+     *
+     * @param fraction fraction of runs between 0 and 1, e.g. 0.99
+     */
+    public long getPercentileNanos(double fraction) {
+        long[] counts = getHistogram();
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        
+        long rank = (long) Math.ceil(fraction * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(rank, 1)) {
+                // The slowest bucket has no upper bound, the maximum is the best estimate there
+                return i == BUCKETS - 1 ? maxNanos : Math.min(1L << i, maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+    
+    /**
+     * Number of runs per bucket
+     */
+    public long[] getHistogram() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,22 @@
+package com.bin.fastcmd.utils;
+
+/**
+ * Time source used to decide when running command blocks are disabled
+ */
+public interface Clock {
+    
+    /**
+     * Current time in this clock's units
+     */
+    long now();
+    
+    /**
+     * Convert a duration in milliseconds to this clock's units, rounding up
+     */
+    long fromMillis(long millis);
+    
+    /**
+     * Convert a duration in this clock's units to milliseconds
+     */
+    long toMillis(long units);
+}
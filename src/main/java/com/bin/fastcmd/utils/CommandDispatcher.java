@@ -0,0 +1,137 @@
+package com.bin.fastcmd.utils;
+
+import com.bin.fastcmd.FastCMD;
+import com.bin.fastcmd.models.CompiledCommand;
+import com.bin.fastcmd.models.VirtualCommandBlock;
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandMap;
+import org.bukkit.command.CommandSender;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.event.server.PluginEnableEvent;
+import org.bukkit.event.server.ServerLoadEvent;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the commands of virtual command blocks as the console.
+ * Each block caches its command line resolved against the server's command map. The cache is
+ * dropped when the block's command changes or when plugins or vanilla commands are (re)registered.
+ * Lines whose label is unknown, vanilla commands, and servers without an accessible command map,
+ * go through {@link Bukkit#dispatchCommand} as before.
+ */
+public class CommandDispatcher implements Listener {
+    
+    private static final Pattern SPACE = Pattern.compile(" ");
+    private static final String VANILLA_WRAPPER = "VanillaCommandWrapper";
+    
+    private final FastCMD plugin;
+    private final CommandMap commandMap;
+    private int generation;
+    
+    public CommandDispatcher(FastCMD plugin) {
+        this.plugin = plugin;
+        this.commandMap = findCommandMap(plugin.getServer());
+        if (commandMap == null) {
+            plugin.getLogger().warning("Server command map is not accessible, commands will be parsed on every run");
+        }
+    }
+    
+    private static CommandMap findCommandMap(Server server) {
+        // CraftServer exposes its command map, but the Server interface does not
+        try {
+            Method method = server.getClass().getMethod("getCommandMap");
+            Object commandMap = method.invoke(server);
+            return commandMap instanceof CommandMap ? (CommandMap) commandMap : null;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Run the command of the block as the console. Plugin commands report their own result.
+     * Vanilla commands never report a failure to plugins, so they only count as failed if they are unknown or throw.
+     *
+     * @return whether the command ran successfully; false if it is unknown, failed, or printed its usage
+     */
+    public boolean dispatch(VirtualCommandBlock commandBlock) {
+        CompiledCommand compiled = commandBlock.getCompiledCommand();
+        if (compiled == null || compiled.getGeneration() != generation) {
+            compiled = compile(commandBlock.getCommand());
+            commandBlock.setCompiledCommand(compiled);
+        }
+        
+        CommandSender console = Bukkit.getConsoleSender();
+        try {
+            Command command = compiled.getCommand();
+            if (command == null || !command.isRegistered()) {
+                return Bukkit.dispatchCommand(console, compiled.getCommandLine());
+            }
+            
+            // Commands may modify their arguments, so each run gets its own copy
+            String[] args = compiled.getArgs();
+            return command.execute(console, compiled.getLabel(), args.length == 0 ? args : args.clone());
+        } catch (RuntimeException e) {
+            // One failing block must not stop the others due in the same tick
+            plugin.getLogger().log(Level.WARNING, "Command block '" + commandBlock.getName()
+                + "' failed to run '" + compiled.getCommandLine() + "'", e);
+            return false;
+        }
+    }
+    
+    /**
+     * Resolve a command line the same way the server's command map does when dispatching it
+     */
+    public CompiledCommand compile(String commandLine) {
+        String[] parts = SPACE.split(commandLine);
+        if (commandMap == null || parts.length == 0) {
+            return new CompiledCommand(commandLine, null, null, null, generation);
+        }
+        
+        String label = parts[0].toLowerCase(Locale.ENGLISH);
+        Command command = commandMap.getCommand(label);
+        
+        // Vanilla commands get their timings and ServerCommandEvent from the server's dispatch, as with a real command block
+        if (command != null && isVanillaCommand(command)) {
+            command = null;
+        }
+        return new CompiledCommand(commandLine, command, label, Arrays.copyOfRange(parts, 1, parts.length), generation);
+    }
+    
+    /**
+     * Whether the command wraps a vanilla command of the server's own dispatcher
+     */
+    private static boolean isVanillaCommand(Command command) {
+        return VANILLA_WRAPPER.equals(command.getClass().getSimpleName());
+    }
+    
+    /**
+     * Drop all compiled commands, they are compiled again on their next run
+     */
+    public void invalidate() {
+        generation++;
+    }
+    
+    @EventHandler
+    public void onPluginEnable(PluginEnableEvent event) {
+        invalidate();
+    }
+    
+    @EventHandler
+    public void onPluginDisable(PluginDisableEvent event) {
+        invalidate();
+    }
+    
+    @EventHandler
+    public void onServerLoad(ServerLoadEvent event) {
+        // Vanilla commands are registered after plugins are enabled, and again on reload
+        invalidate();
+    }
+}
@@ -0,0 +1,194 @@
+package com.bin.fastcmd.utils;
+
+import com.bin.fastcmd.FastCMD;
+import com.bin.fastcmd.managers.StorageManager;
+import com.bin.fastcmd.models.CatchUpPolicy;
+import com.bin.fastcmd.models.CronExpression;
+import com.bin.fastcmd.models.VirtualCommandBlock;
+
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Starts command blocks with a cron expression at their calendar times, as if they were run by hand.
+ * Blocks wait in a min-heap ordered by their next run, so a tick only looks at the head of the heap
+ * and blocks cost nothing between their runs. Blocks are added to and removed from the heap as
+ * {@link StorageManager} reports changes to them; removed entries are skipped when they reach the head.
+ */
+public class CronScheduler implements StorageManager.BlockListener {
+    
+    private final FastCMD plugin;
+    private final Clock clock;
+    private final PriorityQueue<CronEntry> queue;
+    private final Map<String, CronEntry> entries;
+    private ZoneId zone;
+    private boolean started;
+    
+    public CronScheduler(FastCMD plugin, Clock clock) {
+        this.plugin = plugin;
+        this.clock = clock;
+        this.queue = new PriorityQueue<>((a, b) -> Long.compare(a.nextFire, b.nextFire));
+        this.entries = new HashMap<>();
+    }
+    
+    /**
+     * Start the blocks whose next run is due, once per tick on the main thread
+     */
+    public void tick() {
+        if (!plugin.getStorageManager().isReady()) {
+            return;
+        }
+        
+        long now = clock.now();
+        while (!queue.isEmpty() && queue.peek().nextFire <= now) {
+            CronEntry entry = queue.poll();
+            if (entry.removed) {
+                continue;
+            }
+            fire(entry.commandBlock, now);
+            entry.nextFire = entry.expression.next(now, zone);
+            if (entry.nextFire >= 0) {
+                queue.add(entry);
+            } else {
+                entries.remove(entry.commandBlock.getName());
+            }
+        }
+    }
+    
+    @Override
+    public void blocksReplaced(Collection<VirtualCommandBlock> blocks) {
+        zone = plugin.getConfigManager().getCronTimeZone();
+        long now = clock.now();
+        
+        // Runs missed while the server was down are only caught up with when the blocks are first loaded
+        boolean catchUp = !started && plugin.getConfigManager().getCronCatchUp() == CatchUpPolicy.ONCE;
+        started = true;
+        
+        Map<String, CronEntry> previous = new HashMap<>(entries);
+        entries.clear();
+        queue.clear();
+        for (VirtualCommandBlock commandBlock : blocks) {
+            CronEntry old = previous.get(commandBlock.getName());
+            CronEntry entry = createEntry(commandBlock, old, catchUp, now);
+            if (entry != null) {
+                entries.put(commandBlock.getName(), entry);
+                queue.add(entry);
+            }
+        }
+    }
+    
+    @Override
+    public void blockChanged(VirtualCommandBlock commandBlock) {
+        // Blocks changed before the first load are picked up by it
+        if (!started) {
+            return;
+        }
+        
+        CronEntry old = entries.remove(commandBlock.getName());
+        if (old != null) {
+            old.removed = true;
+        }
+        CronEntry entry = createEntry(commandBlock, old, false, clock.now());
+        if (entry != null) {
+            entries.put(commandBlock.getName(), entry);
+            queue.add(entry);
+        }
+        compact();
+    }
+    
+    @Override
+    public void blockRemoved(String name) {
+        CronEntry old = entries.remove(name);
+        if (old != null) {
+            old.removed = true;
+            compact();
+        }
+    }
+    
+    /**
+     * Entry for the block, or null if it has no cron expression or no run ahead
+     *
+     * @param old the block's previous entry, whose next run is kept if the block and its expression are unchanged
+     */
+    private CronEntry createEntry(VirtualCommandBlock commandBlock, CronEntry old, boolean catchUp, long now) {
+        if (commandBlock.getCron() == null) {
+            return null;
+        }
+        
+        CronExpression expression;
+        try {
+            expression = commandBlock.getCronExpression();
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Invalid cron expression of command block '" + commandBlock.getName() + "': " + e.getMessage());
+            return null;
+        }
+        
+        // Blocks whose expression is unchanged keep their next run, even if it is due in this tick
+        long nextFire;
+        if (old != null && old.commandBlock == commandBlock && old.expression == expression) {
+            nextFire = old.nextFire;
+        } else if (catchUp && commandBlock.getCronLastFire() > 0 && isMissed(expression, commandBlock.getCronLastFire(), now)) {
+            nextFire = now;
+        } else {
+            nextFire = expression.next(now, zone);
+        }
+        return nextFire >= 0 ? new CronEntry(commandBlock, expression, nextFire) : null;
+    }
+    
+    /**
+     * Drop removed entries once they make up most of the heap, so blocks changed often don't grow it
+     */
+    private void compact() {
+        if (queue.size() > entries.size() * 2 + 64) {
+            queue.clear();
+            queue.addAll(entries.values());
+        }
+    }
+    
+    private boolean isMissed(CronExpression expression, long lastFire, long now) {
+        long missed = expression.next(lastFire, zone);
+        return missed >= 0 && missed <= now;
+    }
+    
+    private void fire(VirtualCommandBlock commandBlock, long now) {
+        commandBlock.setCronLastFire(now);
+        plugin.getStorageManager().persistCommandBlock(commandBlock);
+        
+        // Like /fastcmd run, a block still running from its previous start is left alone
+        if (commandBlock.isRunning()) {
+            if (plugin.getConfigManager().isDebugMode()) {
+                plugin.getLogger().info("Skipped cron run of command block '" + commandBlock.getName() + "', it is still running");
+            }
+            return;
+        }
+        plugin.getTaskManager().executeCommandBlock(commandBlock);
+    }
+    
+    /**
+     * Epoch milliseconds of the next cron run of the block, or -1 if it has none
+     */
+    public long getNextFire(String name) {
+        CronEntry entry = entries.get(name);
+        return entry != null ? entry.nextFire : -1;
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    private static final class CronEntry {
+        private final VirtualCommandBlock commandBlock;
+        private final CronExpression expression;
+        private long nextFire;
+        private boolean removed;
+        
+        private CronEntry(VirtualCommandBlock commandBlock, CronExpression expression, long nextFire) {
+            this.commandBlock = commandBlock;
+            this.expression = expression;
+            this.nextFire = nextFire;
+        }
+    }
+}
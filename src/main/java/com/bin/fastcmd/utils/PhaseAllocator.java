@@ -0,0 +1,110 @@
+package com.bin.fastcmd.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns running repeating command blocks a phase within their period, so blocks sharing a period
+ * are spread over its ticks instead of all firing in the same one.
+ * A phase is the scheduler tick modulo the period: a block with period 20 and phase 3 fires on ticks 3, 23, 43...
+ */
+public class PhaseAllocator {
+    
+    private final Map<Long, PeriodLoad> loads;
+    private final Map<String, Allocation> allocations;
+    
+    public PhaseAllocator() {
+        this.loads = new HashMap<>();
+        this.allocations = new HashMap<>();
+    }
+    
+    /**
+     * Allocate the least used phase of the period. Among equally used phases, the one giving
+     * a first run a full period after the current tick is preferred, then the soonest.
+     */
+    public long allocate(String name, long period, long currentTick) {
+        release(name);
+        
+        PeriodLoad load = loads.computeIfAbsent(period, PeriodLoad::new);
+        int best = -1;
+        for (long i = 0; i < period; i++) {
+            int phase = (int) ((currentTick + i) % period);
+            if (best < 0 || load.counts[phase] < load.counts[best]) {
+                best = phase;
+                if (load.counts[best] == 0) {
+                    break;
+                }
+            }
+        }
+        
+        add(name, load, best);
+        return best;
+    }
+    
+    /**
+     * Record a phase chosen elsewhere, such as one given with --phase: or kept from before a restart
+     */
+    public void assign(String name, long period, long phase) {
+        release(name);
+        add(name, loads.computeIfAbsent(period, PeriodLoad::new), (int) Math.floorMod(phase, period));
+    }
+    
+    public void release(String name) {
+        Allocation allocation = allocations.remove(name);
+        if (allocation == null) {
+            return;
+        }
+        allocation.load.counts[allocation.phase]--;
+        if (--allocation.load.total == 0) {
+            loads.remove(allocation.load.period);
+        }
+    }
+    
+    public void clear() {
+        loads.clear();
+        allocations.clear();
+    }
+    
+    /**
+     * Phase allocated to the block, or -1 if it has none
+     */
+    public long getPhase(String name) {
+        Allocation allocation = allocations.get(name);
+        return allocation != null ? allocation.phase : -1;
+    }
+    
+    /**
+     * Ticks from the current tick until the first tick of the given phase that is at least the given delay away
+     */
+    public static long delayToPhase(long phase, long period, long currentTick, long minDelay) {
+        long earliest = currentTick + Math.max(minDelay, 1);
+        return earliest - currentTick + Math.floorMod(phase - earliest, period);
+    }
+    
+    private void add(String name, PeriodLoad load, int phase) {
+        load.counts[phase]++;
+        load.total++;
+        allocations.put(name, new Allocation(load, phase));
+    }
+    
+    private static final class PeriodLoad {
+        private final long period;
+        private final int[] counts;
+        private int total;
+        
+        private PeriodLoad(long period) {
+            this.period = period;
+            this.counts = new int[(int) period];
+        }
+    }
+    
+    private static final class Allocation {
+        private final PeriodLoad load;
+        private final int phase;
+        
+        private Allocation(PeriodLoad load, int phase) {
+            this.load = load;
+            this.phase = phase;
+        }
+    }
+}
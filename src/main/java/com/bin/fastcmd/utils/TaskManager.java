@@ -1,36 +1,271 @@
 package com.bin.fastcmd.utils;
 
 import com.bin.fastcmd.FastCMD;
+import com.bin.fastcmd.managers.ConfigManager;
+import com.bin.fastcmd.managers.StorageManager;
+import com.bin.fastcmd.models.BlockPriority;
+import com.bin.fastcmd.models.ClockMode;
 import com.bin.fastcmd.models.CommandBlockType;
+import com.bin.fastcmd.models.ConnectedLink;
+import com.bin.fastcmd.models.ExecutionGraph;
+import com.bin.fastcmd.models.ExecutionState;
 import com.bin.fastcmd.models.VirtualCommandBlock;
-import org.bukkit.Bukkit;
-import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.scheduler.BukkitTask;
 
-import java.util.HashMap;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Manages task execution for virtual command blocks
+ * Manages task execution for virtual command blocks.
+ * All running blocks share one timing wheel, advanced by a single tick task.
+ * Due blocks beyond the per-tick dispatch budget wait in a FIFO queue for the next ticks.
+ * The wheel and the queue belong to the main thread: starting or stopping blocks from another thread
+ * hands the call to the main thread, while the task registry and block states can be read from any thread.
  */
 public class TaskManager {
     
+    private static final long PAUSED_RETRY_TICKS = 20;
+    
     private final FastCMD plugin;
-    private final Map<String, BukkitTask> runningTasks;
+    private final TimingWheel<VirtualCommandBlock> wheel;
+    private final Map<String, DeferredBlock> deferredBlocks;
+    private final Map<String, VirtualCommandBlock> tasks;
+    private final Map<String, BlockStats> stats;
+    private final ChainWalk chainWalk;
+    private final PhaseAllocator phaseAllocator;
+    private final TickThrottle throttle;
+    private final CronScheduler cronScheduler;
+    private final Clock tickClock;
+    private final Clock wallClock;
+    private final File stateFile;
+    private BukkitTask tickTask;
+    private long tickStartNanos;
+    private int dispatchedThisTick;
+    private volatile int dispatchedLastTick;
+    private volatile int deferredCount;
+    
+    // Scheduler settings read on every dispatch, cached by reloadSettings()
+    private int maxDispatchPerTick;
+    private long tickBudgetNanos;
+    private long slowDispatchNanos;
+    private boolean debugMode;
     
     public TaskManager(FastCMD plugin) {
+        this(plugin, new WallClock());
+    }
+    
+    /**
+     * Create a task manager measuring wall clock disable times and cron schedules with the given clock
+     */
+    public TaskManager(FastCMD plugin, Clock wallClock) {
         this.plugin = plugin;
-        this.runningTasks = new HashMap<>();
+        this.wheel = new TimingWheel<>();
+        this.deferredBlocks = new LinkedHashMap<>();
+        this.tasks = new ConcurrentHashMap<>();
+        this.stats = new ConcurrentHashMap<>();
+        this.chainWalk = new ChainWalk();
+        this.phaseAllocator = new PhaseAllocator();
+        this.throttle = new TickThrottle(plugin);
+        this.tickClock = new TickClock(wheel);
+        this.wallClock = wallClock;
+        this.cronScheduler = new CronScheduler(plugin, wallClock);
+        plugin.getStorageManager().addBlockListener(cronScheduler);
+        this.stateFile = new File(plugin.getDataFolder(), "scheduler.yml");
+    }
+    
+    /**
+     * Start the tick task that advances the timing wheel and fires due command blocks
+     */
+    public void start() {
+        reloadSettings();
+        if (tickTask == null) {
+            tickTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+    }
+    
+    /**
+     * Read the scheduler settings checked every tick or for every dispatched block again, after the config was loaded
+     */
+    public void reloadSettings() {
+        ConfigManager config = plugin.getConfigManager();
+        maxDispatchPerTick = config.getMaxDispatchPerTick();
+        tickBudgetNanos = config.getTickBudgetNanos();
+        slowDispatchNanos = config.getSlowDispatchNanos();
+        debugMode = config.isDebugMode();
+        throttle.configure(config);
+    }
+    
+    private void tick() {
+        tickStartNanos = System.nanoTime();
+        throttle.onTick(tickStartNanos);
+        dispatchedLastTick = dispatchedThisTick;
+        dispatchedThisTick = 0;
+        
+        // Blocks started by their cron expression are scheduled like blocks run by hand
+        cronScheduler.tick();
+        
+        // Blocks due now are queued behind the ones deferred by earlier ticks, so the queue stays in due order
+        wheel.advance(this::fire);
+        
+        while (!deferredBlocks.isEmpty() && hasDispatchBudget()) {
+            Iterator<DeferredBlock> iterator = deferredBlocks.values().iterator();
+            DeferredBlock deferred = iterator.next();
+            iterator.remove();
+            dispatch(deferred.commandBlock, wheel.getCurrentTick() - deferred.dueTick);
+        }
+        deferredCount = deferredBlocks.size();
+    }
+    
+    /**
+     * Whether another block may be dispatched in the current tick.
+     * The time budget is measured from the start of this plugin's tick task, not of the server tick.
+     */
+    private boolean hasDispatchBudget() {
+        if (maxDispatchPerTick > 0 && dispatchedThisTick >= maxDispatchPerTick) {
+            return false;
+        }
+        return tickBudgetNanos <= 0 || System.nanoTime() - tickStartNanos < tickBudgetNanos;
     }
     
     public void executeCommandBlock(VirtualCommandBlock commandBlock) {
+        if (!plugin.getServer().isPrimaryThread()) {
+            plugin.getServer().getScheduler().runTask(plugin, () -> executeCommandBlock(commandBlock));
+            return;
+        }
+        start(commandBlock, 0);
+    }
+    
+    /**
+     * Start the block after waiting the given number of ticks on top of its own delay
+     */
+    private void start(VirtualCommandBlock commandBlock, long extraDelay) {
         String name = commandBlock.getName();
         
         // Stop existing task if running
         stopTask(name);
         
-        // Mark as running
-        commandBlock.setRunning(true);
+        // Mark as scheduled, unless it was started again in between
+        if (!commandBlock.markScheduled()) {
+            return;
+        }
+        startDisableTimer(commandBlock, commandBlock.getDisableTime());
+        
+        // Repeating blocks start on their phase, so blocks started together don't fire in the same tick forever
+        if (commandBlock.getType() == CommandBlockType.REPEATING) {
+            long period = Math.max(commandBlock.getDelay(), 1);
+            long currentTick = wheel.getCurrentTick();
+            long phase;
+            if (commandBlock.getPhase() >= 0) {
+                phase = commandBlock.getPhase() % period;
+                phaseAllocator.assign(name, period, phase);
+            } else {
+                phase = phaseAllocator.allocate(name, period, currentTick);
+            }
+            schedule(commandBlock, PhaseAllocator.delayToPhase(phase, period, currentTick, Math.max(extraDelay, 1)));
+            return;
+        }
+        
+        schedule(commandBlock, commandBlock.getDelay() + extraDelay);
+    }
+    
+    /**
+     * Clock measuring the disable time of the block
+     */
+    public Clock getClock(VirtualCommandBlock commandBlock) {
+        ClockMode mode = commandBlock.getClockMode() != null ? commandBlock.getClockMode() : plugin.getConfigManager().getDefaultClock();
+        return mode == ClockMode.WALL ? wallClock : tickClock;
+    }
+    
+    /**
+     * Precompute when the block is disabled, so each run only compares the clock with a deadline
+     */
+    private void startDisableTimer(VirtualCommandBlock commandBlock, long remainingMillis) {
+        if (commandBlock.getDisableTime() <= 0) {
+            commandBlock.setDisableDeadline(-1);
+            return;
+        }
+        Clock clock = getClock(commandBlock);
+        commandBlock.setDisableDeadline(clock.now() + clock.fromMillis(Math.max(remainingMillis, 0)));
+    }
+    
+    private void schedule(VirtualCommandBlock commandBlock, long initialDelay) {
+        wheel.schedule(commandBlock.getName(), commandBlock, initialDelay);
+        tasks.put(commandBlock.getName(), commandBlock);
+    }
+    
+    /**
+     * Move the block to IDLE and out of the registry, unless it was stopped or started again in the meantime
+     */
+    private void finish(VirtualCommandBlock commandBlock, ExecutionState from) {
+        if (commandBlock.transition(from, ExecutionState.IDLE)) {
+            tasks.remove(commandBlock.getName(), commandBlock);
+            if (commandBlock.getType() == CommandBlockType.REPEATING) {
+                phaseAllocator.release(commandBlock.getName());
+            }
+        }
+    }
+    
+    private void fire(String name, VirtualCommandBlock commandBlock) {
+        // Stopped from another thread, the main thread has yet to remove it
+        if (commandBlock.getState() != ExecutionState.SCHEDULED) {
+            return;
+        }
+        
+        BlockPriority priority = commandBlock.getPriority();
+        if (priority == BlockPriority.BACKGROUND && throttle.isPaused()) {
+            skip(commandBlock);
+            return;
+        }
+        
+        // Once the budget is used up, due blocks queue behind the ones already waiting; critical blocks never wait
+        if (priority != BlockPriority.CRITICAL && (!deferredBlocks.isEmpty() || !hasDispatchBudget())) {
+            deferredBlocks.put(name, new DeferredBlock(commandBlock, wheel.getCurrentTick()));
+            return;
+        }
+        dispatch(commandBlock, 0);
+    }
+    
+    /**
+     * Skip a run of a background block while they are paused. Repeating blocks drop the run and
+     * stay on their phase, other blocks try again a second later.
+     */
+    private void skip(VirtualCommandBlock commandBlock) {
+        throttle.recordSkippedRun();
+        if (commandBlock.getType() != CommandBlockType.REPEATING) {
+            schedule(commandBlock, PAUSED_RETRY_TICKS);
+            return;
+        }
+        if (commandBlock.shouldBeDisabled(getClock(commandBlock).now())) {
+            finish(commandBlock, ExecutionState.SCHEDULED);
+            return;
+        }
+        schedule(commandBlock, Math.max(commandBlock.getDelay(), 1));
+    }
+    
+    private void dispatch(VirtualCommandBlock commandBlock, long deferral) {
+        if (!commandBlock.transition(ExecutionState.SCHEDULED, ExecutionState.RUNNING)) {
+            return;
+        }
+        dispatchedThisTick++;
+        getStats(commandBlock).recordDeferral(deferral);
         
         switch (commandBlock.getType()) {
             case NORMAL:
@@ -40,108 +275,531 @@ public class TaskManager {
                 executeChainCommand(commandBlock);
                 break;
             case REPEATING:
-                executeRepeatingCommand(commandBlock);
+                executeRepeatingCommand(commandBlock, deferral);
                 break;
         }
     }
     
     private void executeNormalCommand(VirtualCommandBlock commandBlock) {
-        BukkitTask task = new BukkitRunnable() {
-            @Override
-            public void run() {
-                // Execute the command
-                Bukkit.dispatchCommand(Bukkit.getConsoleSender(), commandBlock.getCommand());
-                
-                // Mark as not running
-                commandBlock.setRunning(false);
-                runningTasks.remove(commandBlock.getName());
-                
-                // Execute connected command block if specified
-                executeConnectedBlock(commandBlock);
-            }
-        }.runTaskLater(plugin, commandBlock.getDelay());
+        // Execute the command
+        boolean success = runCommand(commandBlock);
         
-        runningTasks.put(commandBlock.getName(), task);
+        // Mark as done, unless the command started or stopped its own block
+        finish(commandBlock, ExecutionState.RUNNING);
+        
+        // Execute connected command block if specified
+        executeConnectedBlock(commandBlock, success);
     }
     
     private void executeChainCommand(VirtualCommandBlock commandBlock) {
-        BukkitTask task = new BukkitRunnable() {
-            @Override
-            public void run() {
-                // Execute the command
-                Bukkit.dispatchCommand(Bukkit.getConsoleSender(), commandBlock.getCommand());
-                
-                // Mark as not running
-                commandBlock.setRunning(false);
-                runningTasks.remove(commandBlock.getName());
-                
-                // Execute connected command block immediately for chain type
-                executeConnectedBlock(commandBlock);
-            }
-        }.runTaskLater(plugin, commandBlock.getDelay());
-        
-        runningTasks.put(commandBlock.getName(), task);
-    }
-    
-    private void executeRepeatingCommand(VirtualCommandBlock commandBlock) {
-        BukkitTask task = new BukkitRunnable() {
-            @Override
-            public void run() {
-                // Check if should be disabled
-                if (commandBlock.shouldBeDisabled()) {
-                    commandBlock.setRunning(false);
-                    runningTasks.remove(commandBlock.getName());
-                    cancel();
-                    return;
-                }
-                
-                // Execute the command
-                Bukkit.dispatchCommand(Bukkit.getConsoleSender(), commandBlock.getCommand());
-                
-                // Execute connected command block if specified
-                executeConnectedBlock(commandBlock);
-            }
-        }.runTaskTimer(plugin, commandBlock.getDelay(), Math.max(commandBlock.getDelay(), 1));
+        // Execute the command
+        boolean success = runCommand(commandBlock);
         
-        runningTasks.put(commandBlock.getName(), task);
+        // Mark as done, unless the command started or stopped its own block
+        finish(commandBlock, ExecutionState.RUNNING);
+        
+        // Execute connected command block immediately for chain type
+        executeConnectedBlock(commandBlock, success);
+    }
+    
+    private void executeRepeatingCommand(VirtualCommandBlock commandBlock, long deferral) {
+        // Check if should be disabled
+        if (commandBlock.shouldBeDisabled(getClock(commandBlock).now())) {
+            finish(commandBlock, ExecutionState.RUNNING);
+            return;
+        }
+        
+        // Reschedule before dispatching, so the command can stop its own block.
+        // A deferred run keeps its original period so the block does not drift; runs missed while it
+        // waited a period or more are skipped rather than fired back to back. Background blocks
+        // slowed down by the throttle skip whole periods as well, so they stay on their phase.
+        long period = Math.max(commandBlock.getDelay(), 1);
+        if (commandBlock.getPriority() == BlockPriority.BACKGROUND) {
+            period *= throttle.getMultiplier();
+        }
+        schedule(commandBlock, period - deferral % period);
+        
+        // Execute the command
+        boolean success = runCommand(commandBlock);
+        commandBlock.transition(ExecutionState.RUNNING, ExecutionState.SCHEDULED);
+        
+        // Execute connected command block if specified
+        executeConnectedBlock(commandBlock, success);
+    }
+    
+    /**
+     * Run the command of the block, recording its result and how long it took
+     */
+    private boolean runCommand(VirtualCommandBlock commandBlock) {
+        long start = System.nanoTime();
+        boolean success = plugin.getCommandDispatcher().dispatch(commandBlock);
+        long nanos = System.nanoTime() - start;
+        getStats(commandBlock).recordRun(success, nanos);
+        
+        if (debugMode && nanos >= slowDispatchNanos) {
+            plugin.getLogger().info(String.format("Command block '%s' took %.2f ms to run '%s'%s",
+                commandBlock.getName(), nanos / 1_000_000.0, commandBlock.getCommand(), success ? "" : " and failed"));
+        }
+        return success;
+    }
+    
+    private BlockStats getStats(VirtualCommandBlock commandBlock) {
+        return stats.computeIfAbsent(commandBlock.getName(), name -> new BlockStats());
     }
     
-    private void executeConnectedBlock(VirtualCommandBlock commandBlock) {
-        String connectedName = commandBlock.getConnectedBlock();
-        if (connectedName != null && !connectedName.isEmpty()) {
-            VirtualCommandBlock connectedBlock = plugin.getStorageManager().getCommandBlock(connectedName);
-            if (connectedBlock != null && !connectedBlock.isRunning()) {
-                executeCommandBlock(connectedBlock);
+    /**
+     * Trigger the blocks connected to the given one. Connected chain blocks without a delay run right away
+     * in the same tick, and so do their own zero-delay chain successors; the walk only hands blocks back
+     * to the scheduler at hops with a delay, link delay or spread, or of another type.
+     * Connected blocks whose condition does not accept the result of the block triggering them are
+     * left out before anything is scheduled, along with everything behind them.
+     *
+     * @param success whether the command of the given block succeeded
+     */
+    private void executeConnectedBlock(VirtualCommandBlock commandBlock, boolean success) {
+        StorageManager storage = plugin.getStorageManager();
+        ExecutionGraph graph = storage.getExecutionGraph();
+        int node = graph.indexOf(commandBlock);
+        
+        // Until the graph of the latest change is published, links are followed by name
+        if (node < 0 || !storage.isExecutionGraphCurrent()) {
+            executeConnectedByName(commandBlock, success);
+            return;
+        }
+        
+        ChainWalk walk = chainWalk.begin(graph);
+        walk.visit(node);
+        walk.pushSuccessors(graph, node, success);
+        
+        while (!walk.isEmpty()) {
+            long delay = walk.peekDelay();
+            int target = walk.pop();
+            VirtualCommandBlock connectedBlock = graph.getBlock(target);
+            if (connectedBlock.isRunning()) {
+                continue;
+            }
+            
+            if (connectedBlock.getType() != CommandBlockType.CHAIN || connectedBlock.getDelay() > 0 || delay > 0) {
+                start(connectedBlock, delay);
+                continue;
+            }
+            
+            // Each block runs at most once per walk, so old cyclic chains cannot loop within a tick
+            ExecutionState previous = connectedBlock.getState();
+            if (!walk.visit(target) || !connectedBlock.transition(previous, ExecutionState.RUNNING)) {
+                continue;
             }
+            walk.pushSuccessors(graph, target, runChained(connectedBlock));
         }
     }
     
-    public void stopTask(String name) {
-        BukkitTask task = runningTasks.remove(name);
-        if (task != null) {
-            task.cancel();
+    /**
+     * The same walk as {@link #executeConnectedBlock}, following the current links of each block by name.
+     * Only used between a change to the blocks and the publishing of its graph, so it may allocate.
+     */
+    private void executeConnectedByName(VirtualCommandBlock commandBlock, boolean success) {
+        Deque<VirtualCommandBlock> blocks = new ArrayDeque<>();
+        Deque<Long> delays = new ArrayDeque<>();
+        Set<String> visited = new HashSet<>();
+        visited.add(commandBlock.getName());
+        pushConnected(commandBlock, success, blocks, delays);
+        
+        while (!blocks.isEmpty()) {
+            VirtualCommandBlock connectedBlock = blocks.pop();
+            long delay = delays.pop();
+            if (connectedBlock.isRunning()) {
+                continue;
+            }
+            
+            if (connectedBlock.getType() != CommandBlockType.CHAIN || connectedBlock.getDelay() > 0 || delay > 0) {
+                start(connectedBlock, delay);
+                continue;
+            }
+            
+            ExecutionState previous = connectedBlock.getState();
+            if (!visited.add(connectedBlock.getName()) || !connectedBlock.transition(previous, ExecutionState.RUNNING)) {
+                continue;
+            }
+            pushConnected(connectedBlock, runChained(connectedBlock), blocks, delays);
         }
+    }
+    
+    /**
+     * Push the existing blocks the block links to whose condition accepts its result, spread like {@link ChainWalk} does
+     */
+    private void pushConnected(VirtualCommandBlock commandBlock, boolean success,
+                               Deque<VirtualCommandBlock> blocks, Deque<Long> delays) {
+        List<ConnectedLink> links = commandBlock.getConnections();
+        long spread = commandBlock.getSpread();
         
+        // Pushed in reverse so connected blocks are triggered in the order they are listed
+        for (int i = links.size() - 1; i >= 0; i--) {
+            ConnectedLink link = links.get(i);
+            VirtualCommandBlock target = plugin.getStorageManager().getCommandBlock(link.getName());
+            if (target == null || !target.getCondition().accepts(success)) {
+                continue;
+            }
+            blocks.push(target);
+            delays.push(link.getDelay() + (spread > 0 ? i * spread / links.size() : 0));
+        }
+    }
+    
+    /**
+     * Run a chain block moved to RUNNING within the walk of the block triggering it
+     *
+     * @return whether its command succeeded
+     */
+    private boolean runChained(VirtualCommandBlock commandBlock) {
+        dispatchedThisTick++;
+        getStats(commandBlock).recordDeferral(0);
+        boolean success = runCommand(commandBlock);
+        commandBlock.transition(ExecutionState.RUNNING, ExecutionState.IDLE);
+        return success;
+    }
+    
+    /**
+     * Stop the block. Called from another thread, the block stops running right away and
+     * the main thread removes it from the scheduler afterwards.
+     */
+    public void stopTask(String name) {
         // Update command block status
         VirtualCommandBlock commandBlock = plugin.getStorageManager().getCommandBlock(name);
         if (commandBlock != null) {
-            commandBlock.setRunning(false);
+            commandBlock.markStopped();
         }
+        
+        if (!plugin.getServer().isPrimaryThread()) {
+            plugin.getServer().getScheduler().runTask(plugin, () -> stopTask(name));
+            return;
+        }
+        wheel.cancel(name);
+        deferredBlocks.remove(name);
+        deferredCount = deferredBlocks.size();
+        phaseAllocator.release(name);
+        tasks.remove(name);
     }
     
     public boolean isTaskRunning(String name) {
-        return runningTasks.containsKey(name);
+        return tasks.containsKey(name);
     }
     
     public void stopAllTasks() {
-        for (BukkitTask task : runningTasks.values()) {
-            task.cancel();
-        }
-        runningTasks.clear();
-        
         // Update all command block statuses
         for (VirtualCommandBlock commandBlock : plugin.getStorageManager().getAllCommandBlocks().values()) {
-            commandBlock.setRunning(false);
+            commandBlock.markStopped();
+        }
+        
+        if (!plugin.getServer().isPrimaryThread()) {
+            plugin.getServer().getScheduler().runTask(plugin, this::stopAllTasks);
+            return;
+        }
+        wheel.clear();
+        deferredBlocks.clear();
+        deferredCount = 0;
+        phaseAllocator.clear();
+        tasks.clear();
+    }
+    
+    /**
+     * Ticks until the block fires next, 0 while it is waiting for dispatch budget, or -1 if it is not running
+     */
+    public long getTicksUntilNextRun(String name) {
+        if (deferredBlocks.containsKey(name)) {
+            return 0;
+        }
+        long deadline = wheel.getDeadline(name);
+        return deadline < 0 ? -1 : deadline - wheel.getCurrentTick();
+    }
+    
+    /**
+     * Predict how many blocks are dispatched in each of the next ticks, from the blocks currently scheduled.
+     * Repeating blocks are assumed to keep running at the current throttle; chain blocks run inline by their
+     * predecessor are not included.
+     */
+    public int[] predictLoad(int ticks) {
+        int[] counts = new int[ticks];
+        if (ticks == 0) {
+            return counts;
+        }
+        counts[0] += deferredBlocks.size();
+        
+        long currentTick = wheel.getCurrentTick();
+        for (String name : wheel.keys()) {
+            VirtualCommandBlock commandBlock = plugin.getStorageManager().getCommandBlock(name);
+            if (commandBlock == null) {
+                continue;
+            }
+            boolean background = commandBlock.getPriority() == BlockPriority.BACKGROUND;
+            if (background && throttle.isPaused()) {
+                continue;
+            }
+            long offset = wheel.getDeadline(name) - currentTick - 1;
+            long period = commandBlock.getType() == CommandBlockType.REPEATING ? Math.max(commandBlock.getDelay(), 1) : ticks;
+            if (background) {
+                period *= throttle.getMultiplier();
+            }
+            for (long tick = offset; tick < ticks; tick += period) {
+                counts[(int) tick]++;
+            }
+        }
+        return counts;
+    }
+    
+    /**
+     * How many ticks the last run of the block waited for dispatch budget
+     */
+    public long getLastDeferral(String name) {
+        BlockStats blockStats = stats.get(name);
+        return blockStats != null ? blockStats.getLastDeferral() : 0;
+    }
+    
+    /**
+     * Counters and dispatch times of the block, or null if it has not run since the server started
+     */
+    public BlockStats getStats(String name) {
+        return stats.get(name);
+    }
+    
+    /**
+     * Counters and dispatch times of every block that has run, by block name
+     */
+    public Map<String, BlockStats> getAllStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+    
+    public void removeStats(String name) {
+        stats.remove(name);
+    }
+    
+    public int getRunningCount() {
+        return tasks.size();
+    }
+    
+    /**
+     * How many due blocks were waiting for dispatch budget at the end of the last tick
+     */
+    public int getDeferredCount() {
+        return deferredCount;
+    }
+    
+    public int getDispatchedLastTick() {
+        return dispatchedLastTick;
+    }
+    
+    public TickThrottle getThrottle() {
+        return throttle;
+    }
+    
+    public CronScheduler getCronScheduler() {
+        return cronScheduler;
+    }
+    
+    /**
+     * Save which blocks are running, how long they have been running and when they fire next,
+     * so {@link #restoreState()} can resume them after a restart
+     */
+    public void saveState() {
+        if (tickTask != null) {
+            tickTask.cancel();
+            tickTask = null;
+        }
+        
+        // Nothing could have been started, and an unrestored state must be kept
+        if (!plugin.getStorageManager().isReady()) {
+            return;
+        }
+        
+        YamlConfiguration state = new YamlConfiguration();
+        ConfigurationSection blocksSection = state.createSection("running-blocks");
+        for (String name : tasks.keySet()) {
+            VirtualCommandBlock commandBlock = plugin.getStorageManager().getCommandBlock(name);
+            if (commandBlock == null || !commandBlock.isRunning()) {
+                continue;
+            }
+            ConfigurationSection blockSection = blocksSection.createSection(name);
+            blockSection.set("elapsed", System.currentTimeMillis() - commandBlock.getStartTime());
+            if (commandBlock.getDisableDeadline() >= 0) {
+                Clock clock = getClock(commandBlock);
+                blockSection.set("disable-remaining", clock.toMillis(Math.max(0, commandBlock.getDisableDeadline() - clock.now())));
+            }
+            blockSection.set("next-fire", Math.max(0, getTicksUntilNextRun(name)));
+        }
+        
+        if (blocksSection.getKeys(false).isEmpty()) {
+            stateFile.delete();
+            return;
+        }
+        
+        try {
+            Files.write(stateFile.toPath(), state.saveToString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to save scheduler.yml: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Resume the blocks saved by {@link #saveState()}. Resumed blocks are spread over
+     * the configured number of ticks so they don't all fire in the same tick.
+     */
+    public void restoreState() {
+        if (!stateFile.exists()) {
+            return;
+        }
+        
+        YamlConfiguration state;
+        try {
+            String content = new String(Files.readAllBytes(stateFile.toPath()), StandardCharsets.UTF_8);
+            state = YamlConfiguration.loadConfiguration(new InputStreamReader(
+                new java.io.ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8
+            ));
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to load scheduler.yml: " + e.getMessage());
+            return;
+        }
+        
+        // The state only describes the last shutdown, a crash must not resume it twice
+        stateFile.delete();
+        
+        ConfigurationSection blocksSection = state.getConfigurationSection("running-blocks");
+        if (blocksSection == null) {
+            return;
+        }
+        
+        List<ResumedBlock> resumed = new ArrayList<>();
+        for (String name : blocksSection.getKeys(false)) {
+            VirtualCommandBlock commandBlock = plugin.getStorageManager().getCommandBlock(name);
+            ConfigurationSection blockSection = blocksSection.getConfigurationSection(name);
+            if (commandBlock == null || blockSection == null || commandBlock.isRunning()) {
+                continue;
+            }
+            long elapsed = blockSection.getLong("elapsed", 0);
+            
+            // States saved before disable deadlines existed only know the elapsed wall time
+            long disableRemaining = blockSection.getLong("disable-remaining", commandBlock.getDisableTime() - elapsed);
+            resumed.add(new ResumedBlock(commandBlock, elapsed, disableRemaining, blockSection.getLong("next-fire", 0)));
+        }
+        
+        // Blocks due at the same time are given consecutive offsets within the spread window
+        resumed.sort(Comparator.comparingLong(block -> block.nextFire));
+        long spread = plugin.getConfigManager().getResumeSpread();
+        for (int i = 0; i < resumed.size(); i++) {
+            ResumedBlock block = resumed.get(i);
+            if (!block.commandBlock.resumeRunning(block.elapsed)) {
+                continue;
+            }
+            startDisableTimer(block.commandBlock, block.disableRemaining);
+            long delay = block.nextFire + (spread > 0 ? i % spread : 0);
+            
+            // The tick counter restarted, so explicit phases are realigned and automatic ones follow the resumed run
+            if (block.commandBlock.getType() == CommandBlockType.REPEATING) {
+                String name = block.commandBlock.getName();
+                long period = Math.max(block.commandBlock.getDelay(), 1);
+                long currentTick = wheel.getCurrentTick();
+                if (block.commandBlock.getPhase() >= 0) {
+                    long phase = block.commandBlock.getPhase() % period;
+                    phaseAllocator.assign(name, period, phase);
+                    delay = PhaseAllocator.delayToPhase(phase, period, currentTick, delay);
+                } else {
+                    phaseAllocator.assign(name, period, currentTick + Math.max(delay, 1));
+                }
+            }
+            schedule(block.commandBlock, delay);
+        }
+        
+        if (!resumed.isEmpty()) {
+            plugin.getLogger().info("Resumed " + resumed.size() + " running command blocks");
+        }
+    }
+    
+    /**
+     * Reusable state of an inline chain walk: a stack of nodes still to trigger with the ticks to wait before
+     * each, and a per-node stamp of the last walk that ran it, so starting a walk allocates nothing once
+     * the arrays have grown
+     */
+    private static final class ChainWalk {
+        private int[] stack = new int[16];
+        private long[] delays = new long[16];
+        private int size;
+        private int[] visited = new int[0];
+        private int stamp;
+        
+        private ChainWalk begin(ExecutionGraph graph) {
+            if (visited.length < graph.size()) {
+                visited = new int[graph.size()];
+                stamp = 0;
+            }
+            size = 0;
+            stamp++;
+            return this;
+        }
+        
+        private boolean visit(int node) {
+            if (visited[node] == stamp) {
+                return false;
+            }
+            visited[node] = stamp;
+            return true;
+        }
+        
+        /**
+         * Push the blocks the node links to whose condition accepts its result. With a spread, the i-th
+         * of n links is started i * spread / n ticks later, so a large fan-out is spread evenly over that many ticks.
+         */
+        private void pushSuccessors(ExecutionGraph graph, int node, boolean success) {
+            int first = graph.getEdgeStart(node);
+            int count = graph.getEdgeEnd(node) - first;
+            long spread = graph.getBlock(node).getSpread();
+            
+            // Pushed in reverse so connected blocks are triggered in the order they are listed
+            for (int i = count - 1; i >= 0; i--) {
+                int target = graph.getEdgeTarget(first + i);
+                if (target < 0 || !graph.getBlock(target).getCondition().accepts(success)) {
+                    continue;
+                }
+                if (size == stack.length) {
+                    stack = Arrays.copyOf(stack, size * 2);
+                    delays = Arrays.copyOf(delays, size * 2);
+                }
+                stack[size] = target;
+                delays[size++] = graph.getEdgeDelay(first + i) + (spread > 0 ? i * spread / count : 0);
+            }
+        }
+        
+        private boolean isEmpty() {
+            return size == 0;
+        }
+        
+        private long peekDelay() {
+            return delays[size - 1];
+        }
+        
+        private int pop() {
+            return stack[--size];
+        }
+    }
+    
+    private static final class DeferredBlock {
+        private final VirtualCommandBlock commandBlock;
+        private final long dueTick;
+        
+        private DeferredBlock(VirtualCommandBlock commandBlock, long dueTick) {
+            this.commandBlock = commandBlock;
+            this.dueTick = dueTick;
+        }
+    }
+    
+    private static final class ResumedBlock {
+        private final VirtualCommandBlock commandBlock;
+        private final long elapsed;
+        private final long disableRemaining;
+        private final long nextFire;
+        
+        private ResumedBlock(VirtualCommandBlock commandBlock, long elapsed, long disableRemaining, long nextFire) {
+            this.commandBlock = commandBlock;
+            this.elapsed = elapsed;
+            this.disableRemaining = disableRemaining;
+            this.nextFire = nextFire;
         }
     }
 }
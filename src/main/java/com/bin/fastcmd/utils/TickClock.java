@@ -0,0 +1,31 @@
+package com.bin.fastcmd.utils;
+
+/**
+ * Clock counting server ticks as seen by the scheduler, so durations are counted in runs rather than real time.
+ * Under lag it runs slower than the wall clock, keeping the number of repeats of a block the same.
+ */
+public class TickClock implements Clock {
+    
+    private static final long MILLIS_PER_TICK = 50;
+    
+    private final TimingWheel<?> wheel;
+    
+    public TickClock(TimingWheel<?> wheel) {
+        this.wheel = wheel;
+    }
+    
+    @Override
+    public long now() {
+        return wheel.getCurrentTick();
+    }
+    
+    @Override
+    public long fromMillis(long millis) {
+        return (millis + MILLIS_PER_TICK - 1) / MILLIS_PER_TICK;
+    }
+    
+    @Override
+    public long toMillis(long ticks) {
+        return ticks * MILLIS_PER_TICK;
+    }
+}
@@ -0,0 +1,170 @@
+package com.bin.fastcmd.utils;
+
+import com.bin.fastcmd.FastCMD;
+import com.bin.fastcmd.managers.ConfigManager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Measures how long server ticks take and decides how much background command blocks are slowed down.
+ * The tick time is taken as the interval between two runs of the scheduler's tick task, which stays at
+ * 50 ms while the server keeps up and grows with the tick time once it falls behind.
+ */
+public class TickThrottle {
+    
+    private static final double AVERAGE_WEIGHT = 0.1;
+    private static final int MAX_EVENTS = 5;
+    
+    private final FastCMD plugin;
+    private final Deque<ThrottleEvent> events;
+    private long lastTickNanos;
+    private double averageMspt = 50;
+    private long ticksSinceCheck;
+    private int multiplier = 1;
+    private boolean paused;
+    private long skippedRuns;
+    
+    // Settings cached by configure(), the throttle runs every tick
+    private boolean enabled = true;
+    private long checkInterval = 40;
+    private double slowMspt = 55;
+    private double pauseMspt = 100;
+    private double recoverMspt = 51;
+    private int maxMultiplier = 8;
+    
+    public TickThrottle(FastCMD plugin) {
+        this.plugin = plugin;
+        this.events = new ArrayDeque<>();
+    }
+    
+    /**
+     * Read the scheduler.throttle settings, when the scheduler starts and whenever the config is loaded
+     */
+    public void configure(ConfigManager config) {
+        enabled = config.isThrottleEnabled();
+        checkInterval = config.getThrottleCheckInterval();
+        slowMspt = config.getThrottleSlowMspt();
+        pauseMspt = config.getThrottlePauseMspt();
+        recoverMspt = config.getThrottleRecoverMspt();
+        maxMultiplier = config.getThrottleMaxMultiplier();
+    }
+    
+    /**
+     * Record the start of a tick and adjust the throttle every check interval
+     */
+    public void onTick(long nanos) {
+        if (lastTickNanos != 0) {
+            double mspt = (nanos - lastTickNanos) / 1_000_000.0;
+            averageMspt += (mspt - averageMspt) * AVERAGE_WEIGHT;
+        }
+        lastTickNanos = nanos;
+        
+        if (++ticksSinceCheck < checkInterval) {
+            return;
+        }
+        ticksSinceCheck = 0;
+        
+        if (!enabled) {
+            change(1, false);
+        } else if (averageMspt >= pauseMspt) {
+            change(multiplier, true);
+        } else if (averageMspt >= slowMspt) {
+            // Coming back from a pause starts at the slowest rate
+            change(paused ? maxMultiplier : Math.min(multiplier * 2, maxMultiplier), false);
+        } else if (averageMspt < recoverMspt) {
+            // Between the recover and slow thresholds nothing changes, so the rate doesn't flap
+            change(paused ? maxMultiplier : Math.max(multiplier / 2, 1), false);
+        }
+    }
+    
+    private void change(int newMultiplier, boolean newPaused) {
+        if (newMultiplier == multiplier && newPaused == paused) {
+            return;
+        }
+        multiplier = newMultiplier;
+        paused = newPaused;
+        
+        ThrottleEvent event = new ThrottleEvent(System.currentTimeMillis(), averageMspt, multiplier, paused);
+        if (events.size() == MAX_EVENTS) {
+            events.removeFirst();
+        }
+        events.addLast(event);
+        
+        if (paused) {
+            plugin.getLogger().warning(String.format("Average tick time is %.1f ms, pausing background command blocks", averageMspt));
+        } else if (multiplier > 1) {
+            plugin.getLogger().warning(String.format("Average tick time is %.1f ms, background command blocks run at 1/%d rate", averageMspt, multiplier));
+        } else {
+            plugin.getLogger().info(String.format("Average tick time is %.1f ms, background command blocks run at full rate again", averageMspt));
+        }
+    }
+    
+    /**
+     * How many times the periods of background blocks are stretched
+     */
+    public int getMultiplier() {
+        return multiplier;
+    }
+    
+    /**
+     * Whether runs of background blocks are currently skipped
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+    
+    public double getAverageMspt() {
+        return averageMspt;
+    }
+    
+    public void recordSkippedRun() {
+        skippedRuns++;
+    }
+    
+    public long getSkippedRuns() {
+        return skippedRuns;
+    }
+    
+    /**
+     * The latest throttle changes, oldest first
+     */
+    public List<ThrottleEvent> getEvents() {
+        return new ArrayList<>(events);
+    }
+    
+    /**
+     * A change of the background block rate
+     */
+    public static final class ThrottleEvent {
+        private final long time;
+        private final double averageMspt;
+        private final int multiplier;
+        private final boolean paused;
+        
+        private ThrottleEvent(long time, double averageMspt, int multiplier, boolean paused) {
+            this.time = time;
+            this.averageMspt = averageMspt;
+            this.multiplier = multiplier;
+            this.paused = paused;
+        }
+        
+        public long getTime() {
+            return time;
+        }
+        
+        public double getAverageMspt() {
+            return averageMspt;
+        }
+        
+        public int getMultiplier() {
+            return multiplier;
+        }
+        
+        public boolean isPaused() {
+            return paused;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.bin.fastcmd.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Hierarchical timing wheel keyed by name, advanced once per server tick.
+ * Level 0 has one slot per tick for the next 256 ticks, each higher level has 64 slots covering
+ * 64 slots of the level below. Entries move down a level when their slot comes up, so scheduling
+ * and cancelling are O(1) and each tick only touches the slot that is due.
+ * Entries are pooled and reused, so steady rescheduling allocates nothing.
+ *
+ * @param <T> payload handed back when an entry expires
+ */
+public class TimingWheel<T> {
+    
+    private static final int LEVEL0_BITS = 8;
+    private static final int LEVEL_BITS = 6;
+    private static final int LEVELS = 4;
+    private static final int LEVEL0_SIZE = 1 << LEVEL0_BITS;
+    private static final int LEVEL_SIZE = 1 << LEVEL_BITS;
+    private static final long MAX_SPAN = 1L << (LEVEL0_BITS + (LEVELS - 1) * LEVEL_BITS);
+    
+    private static final int FREE = 0;
+    private static final int QUEUED = 1;
+    private static final int FIRING = 2;
+    
+    private final Entry<T>[][] slots;
+    private final Map<String, Entry<T>> entries;
+    private final List<Entry<T>> firing;
+    private Entry<T> pool;
+    private long currentTick;
+    
+    public TimingWheel() {
+        this.slots = createSlots();
+        this.entries = new HashMap<>();
+        this.firing = new ArrayList<>();
+    }
+    
+    /**
+     * Slot heads of every level. Arrays of a generic type can only be created unchecked, so this is the one place doing it.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Entry<T>[][] createSlots() {
+        Entry<T>[][] slots = (Entry<T>[][]) new Entry<?>[LEVELS][];
+        slots[0] = (Entry<T>[]) new Entry<?>[LEVEL0_SIZE];
+        for (int level = 1; level < LEVELS; level++) {
+            slots[level] = (Entry<T>[]) new Entry<?>[LEVEL_SIZE];
+        }
+        return slots;
+    }
+    
+    public long getCurrentTick() {
+        return currentTick;
+    }
+    
+    /**
+     * Schedule the payload to expire after the given number of ticks, replacing any entry with the same key.
+     * Like the Bukkit scheduler, a delay below one tick expires on the next tick.
+     */
+    public void schedule(String key, T payload, long delay) {
+        cancel(key);
+        
+        Entry<T> entry = acquire();
+        entry.key = key;
+        entry.payload = payload;
+        entry.deadline = currentTick + Math.max(delay, 1);
+        entries.put(key, entry);
+        place(entry);
+    }
+    
+    /**
+     * Remove the entry with the given key
+     *
+     * @return whether an entry was scheduled
+     */
+    public boolean cancel(String key) {
+        Entry<T> entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        if (entry.state == QUEUED) {
+            unlink(entry);
+            release(entry);
+        } else {
+            // Released by advance() once the current batch is done
+            entry.cancelled = true;
+        }
+        return true;
+    }
+    
+    public boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+    
+    /**
+     * Tick at which the entry with the given key expires, or -1 if it is not scheduled
+     */
+    public long getDeadline(String key) {
+        Entry<T> entry = entries.get(key);
+        return entry != null ? entry.deadline : -1;
+    }
+    
+    public Set<String> keys() {
+        return entries.keySet();
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    public void clear() {
+        for (String key : new ArrayList<>(entries.keySet())) {
+            cancel(key);
+        }
+    }
+    
+    /**
+     * Move to the next tick and hand every entry expiring on it to the handler.
+     * The handler may schedule or cancel entries, including the one being handled.
+     */
+    public void advance(BiConsumer<String, T> handler) {
+        currentTick++;
+        
+        // Bring down entries from higher levels whose slot has come up
+        if ((currentTick & (LEVEL0_SIZE - 1)) == 0) {
+            cascade(1);
+        }
+        
+        int index = (int) (currentTick & (LEVEL0_SIZE - 1));
+        Entry<T> entry = slots[0][index];
+        slots[0][index] = null;
+        while (entry != null) {
+            Entry<T> next = entry.next;
+            entry.prev = null;
+            entry.next = null;
+            entry.state = FIRING;
+            firing.add(entry);
+            entry = next;
+        }
+        
+        for (int i = 0; i < firing.size(); i++) {
+            Entry<T> expired = firing.get(i);
+            if (!expired.cancelled) {
+                entries.remove(expired.key);
+                handler.accept(expired.key, expired.payload);
+            }
+            release(expired);
+        }
+        firing.clear();
+    }
+    
+    private void cascade(int level) {
+        int shift = LEVEL0_BITS + (level - 1) * LEVEL_BITS;
+        int index = (int) ((currentTick >>> shift) & (LEVEL_SIZE - 1));
+        
+        // Higher levels are cascaded first, since their entries may land in this level's current slot
+        if (index == 0 && level + 1 < LEVELS) {
+            cascade(level + 1);
+        }
+        
+        Entry<T> entry = slots[level][index];
+        slots[level][index] = null;
+        while (entry != null) {
+            Entry<T> next = entry.next;
+            entry.prev = null;
+            entry.next = null;
+            place(entry);
+            entry = next;
+        }
+    }
+    
+    private void place(Entry<T> entry) {
+        long delta = entry.deadline - currentTick;
+        
+        // Deadlines beyond the wheel wait in the last slot of the top level and are placed again later
+        long slotTick = delta >= MAX_SPAN ? currentTick + MAX_SPAN - 1 : entry.deadline;
+        delta = slotTick - currentTick;
+        
+        int level;
+        int index;
+        if (delta < LEVEL0_SIZE) {
+            level = 0;
+            index = (int) (slotTick & (LEVEL0_SIZE - 1));
+        } else {
+            level = 1;
+            int shift = LEVEL0_BITS;
+            while (level < LEVELS - 1 && delta >= (1L << (shift + LEVEL_BITS))) {
+                level++;
+                shift += LEVEL_BITS;
+            }
+            index = (int) ((slotTick >>> shift) & (LEVEL_SIZE - 1));
+        }
+        
+        Entry<T> head = slots[level][index];
+        entry.level = level;
+        entry.index = index;
+        entry.prev = null;
+        entry.next = head;
+        if (head != null) {
+            head.prev = entry;
+        }
+        slots[level][index] = entry;
+        entry.state = QUEUED;
+    }
+    
+    private void unlink(Entry<T> entry) {
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            slots[entry.level][entry.index] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+    }
+    
+    private Entry<T> acquire() {
+        Entry<T> entry = pool;
+        if (entry == null) {
+            return new Entry<>();
+        }
+        pool = entry.next;
+        entry.next = null;
+        return entry;
+    }
+    
+    private void release(Entry<T> entry) {
+        entry.key = null;
+        entry.payload = null;
+        entry.cancelled = false;
+        entry.state = FREE;
+        entry.prev = null;
+        entry.next = pool;
+        pool = entry;
+    }
+    
+    private static final class Entry<T> {
+        private String key;
+        private T payload;
+        private long deadline;
+        private int level;
+        private int index;
+        private int state;
+        private boolean cancelled;
+        private Entry<T> prev;
+        private Entry<T> next;
+    }
+}
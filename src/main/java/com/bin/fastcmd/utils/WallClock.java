@@ -0,0 +1,22 @@
+package com.bin.fastcmd.utils;
+
+/**
+ * Clock following real time in milliseconds, regardless of how fast the server ticks
+ */
+public class WallClock implements Clock {
+    
+    @Override
+    public long now() {
+        return System.currentTimeMillis();
+    }
+    
+    @Override
+    public long fromMillis(long millis) {
+        return millis;
+    }
+    
+    @Override
+    public long toMillis(long millis) {
+        return millis;
+    }
+}